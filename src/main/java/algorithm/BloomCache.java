@@ -0,0 +1,169 @@
+package algorithm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * An approximate Cache that keeps fingerprints in a blocked Bloom filter instead of storing them, so a partial
+ * solution takes about two bytes of the closed set instead of sixteen. Every fingerprint sets HASHES bits in one
+ * block of 512 bits, a single cache line chosen by the first lane, at positions taken from the second lane.
+ * Bits are set with atomic operations, so any number of threads share it without locks.
+ *
+ * A fingerprint whose bits were all set by others is a false positive and its partial solution is pruned wrongly.
+ * The probability grows with the share of bits that are set, so it is tracked while the search runs together
+ * with the expected number of partial solutions that were pruned wrongly. Partial solutions whose cost is within
+ * NEAR_INCUMBENT of the incumbent are the ones that decide whether it is optimal, so they are kept in an exact
+ * Cache instead and never pruned wrongly. A lookup without a cost can not tell, so it only checks the exact Cache
+ * and the filter is only consulted once the cost of a partial solution is known.
+ */
+public class BloomCache extends Cache {
+    private static final int BLOCK_BITS = 9; // 512 bits, one cache line
+    private static final int HASHES = 7; // bits set per fingerprint, 7 * BLOCK_BITS bits of the second lane
+    private static final double NEAR_INCUMBENT = 0.01; // share of the bound below it that is checked exactly
+    private static final double DESIGN_PROBABILITY = 0.001; // false positive probability getCapacity refers to
+    public static final int MAX_MEGABYTES = 8192; // 2^30 longs, an AtomicLongArray holds at most 2^31 - 1
+
+    private AtomicLongArray _bits;
+    private int _blockMask;
+    private long _bitCount;
+    private Incumbent _incumbent;
+    private Cache _exact;
+
+    private AtomicLong _bitsSet = new AtomicLong();
+    private AtomicLong _states = new AtomicLong();
+    private DoubleAdder _wronglyPruned = new DoubleAdder();
+
+    /**
+     * @param processorCount
+     * @param megabytes size of the filter, see bitCount
+     * @param incumbent the upper bound of the search, partial solutions close to it are checked exactly
+     */
+    public BloomCache(int processorCount, int megabytes, Incumbent incumbent) {
+        super(processorCount, 0);
+        _bitCount = bitCount(megabytes);
+        _bits = new AtomicLongArray((int) (_bitCount >>> 6));
+        _blockMask = (int) (_bitCount >>> BLOCK_BITS) - 1;
+        _incumbent = incumbent;
+        _exact = new Cache(processorCount);
+    }
+
+    @Override
+    public boolean add(long fingerprint, long fingerprintCheck) {
+        return add(fingerprint, fingerprintCheck, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean add(long fingerprint, long fingerprintCheck, int cost) {
+        if (isNearIncumbent(cost)) {
+            return _exact.add(fingerprint, fingerprintCheck);
+        }
+        // a new fingerprint had the chance to be a false positive, which would have pruned it
+        double probability = getFalsePositiveProbability();
+        int block = block(fingerprint);
+        int newBits = 0;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (fingerprintCheck >>> (i * BLOCK_BITS)) & ((1 << BLOCK_BITS) - 1);
+            int word = block + (bit >>> 6);
+            long mask = 1L << bit;
+            if ((_bits.get(word) & mask) == 0 && (_bits.getAndAccumulate(word, mask, (a, b) -> a | b) & mask) == 0) {
+                newBits++;
+            }
+        }
+        if (newBits == 0) {
+            return false;
+        }
+        _bitsSet.addAndGet(newBits);
+        _states.incrementAndGet();
+        _wronglyPruned.add(probability);
+        return true;
+    }
+
+    @Override
+    public boolean contains(long fingerprint, long fingerprintCheck) {
+        return contains(fingerprint, fingerprintCheck, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean contains(long fingerprint, long fingerprintCheck, int cost) {
+        if (isNearIncumbent(cost)) {
+            return _exact.contains(fingerprint, fingerprintCheck);
+        }
+        int block = block(fingerprint);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (fingerprintCheck >>> (i * BLOCK_BITS)) & ((1 << BLOCK_BITS) - 1);
+            if ((_bits.get(block + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of partial solutions that were added, as far as the filter can tell
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, _states.get() + _exact.size());
+    }
+
+    /**
+     * @return the fingerprints that are kept exactly, the filter can not list the others
+     */
+    @Override
+    public long[] entries() {
+        return _exact.entries();
+    }
+
+    @Override
+    public Cache forThreads(int threads) {
+        return this;
+    }
+
+    /**
+     * @param megabytes
+     * @return number of bits of a filter of this size, rounded down to a power of two number of blocks and at
+     * most MAX_MEGABYTES
+     */
+    public static long bitCount(int megabytes) {
+        long megabytesUsed = Math.max(1, Math.min(megabytes, MAX_MEGABYTES));
+        return Long.highestOneBit(megabytesUsed << 23 >>> BLOCK_BITS) << BLOCK_BITS;
+    }
+
+    /**
+     * @return the probability that a new fingerprint is taken for one that was added, with the bits set so far
+     */
+    public double getFalsePositiveProbability() {
+        double fill = (double) _bitsSet.get() / _bitCount;
+        double probability = 1;
+        for (int i = 0; i < HASHES; i++) {
+            probability *= fill;
+        }
+        return probability;
+    }
+
+    /**
+     * @return number of partial solutions the filter holds before the false positive probability reaches
+     * DESIGN_PROBABILITY, assuming the bits of a fingerprint are independent
+     */
+    public long getCapacity() {
+        double fill = Math.pow(DESIGN_PROBABILITY, 1.0 / HASHES);
+        return (long) (-Math.log(1 - fill) * _bitCount / HASHES);
+    }
+
+    /**
+     * @return the expected number of partial solutions that were pruned as duplicates although they were new
+     */
+    public double getWronglyPruned() {
+        return _wronglyPruned.sum();
+    }
+
+    private boolean isNearIncumbent(int cost) {
+        int bound = _incumbent.getBound();
+        return cost >= bound - (int) (bound * NEAR_INCUMBENT);
+    }
+
+    private int block(long fingerprint) {
+        return ((int) fingerprint & _blockMask) << (BLOCK_BITS - 6);
+    }
+}
@@ -0,0 +1,221 @@
+package algorithm;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Open list of partial solutions ordered like PartialSolution.compareTo, but without a heap: costs are small
+ * integers, so there is a bucket for every cost from the lowest one added, and within it a stack for every
+ * (node count, priority) pair.
+ * Adding is O(1) and polling only has to skip empty buckets, which is amortised O(1) as the cost of the
+ * partial solutions that are expanded only goes up, apart from the node count scan within a bucket.
+ *
+ * Partial solutions that compare equal are polled last in, first out.
+ */
+public class BucketQueue extends AbstractQueue<PartialSolution> {
+    private int _totalNodes;
+    private Bucket[] _buckets = new Bucket[16]; // indexed by cost minus _base
+    private int _base = -1; // cost of the first bucket, set by the first partial solution added
+    private int _minCost; // no bucket below this index holds a partial solution
+    private int _size;
+
+    /**
+     * @param totalNodes number of nodes in the graph, the highest node count of a partial solution
+     */
+    public BucketQueue(int totalNodes) {
+        _totalNodes = totalNodes;
+        _minCost = _buckets.length;
+    }
+
+    @Override
+    public boolean offer(PartialSolution ps) {
+        if (_base == -1) {
+            _base = ps._cost;
+        } else if (ps._cost < _base) { // rare, costs of children are at least the cost of their parent
+            int shift = _base - ps._cost;
+            Bucket[] buckets = new Bucket[_buckets.length + shift];
+            System.arraycopy(_buckets, 0, buckets, shift, _buckets.length);
+            _buckets = buckets;
+            _minCost += shift;
+            _base = ps._cost;
+        }
+        int cost = ps._cost - _base;
+        if (cost >= _buckets.length) {
+            _buckets = Arrays.copyOf(_buckets, Math.max(cost + 1, _buckets.length * 2));
+        }
+        if (_buckets[cost] == null) {
+            _buckets[cost] = new Bucket(_totalNodes);
+        }
+        _buckets[cost].push(ps, stackIndex(ps));
+        _minCost = Math.min(_minCost, cost);
+        _size++;
+        return true;
+    }
+
+    @Override
+    public PartialSolution poll() {
+        Bucket bucket = firstBucket();
+        if (bucket == null) {
+            return null;
+        }
+        _size--;
+        return bucket.pop();
+    }
+
+    @Override
+    public PartialSolution peek() {
+        Bucket bucket = firstBucket();
+        return bucket == null ? null : bucket.peek();
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public Iterator<PartialSolution> iterator() {
+        return new Iterator<PartialSolution>() {
+            private int _cost = _minCost;
+            private int _stack;
+            private int _position;
+
+            @Override
+            public boolean hasNext() {
+                while (_cost < _buckets.length) {
+                    Bucket bucket = _buckets[_cost];
+                    if (bucket != null) {
+                        while (_stack < bucket._sizes.length) {
+                            if (_position < bucket._sizes[_stack]) {
+                                return true;
+                            }
+                            _stack++;
+                            _position = 0;
+                        }
+                    }
+                    _cost++;
+                    _stack = 0;
+                    _position = 0;
+                }
+                return false;
+            }
+
+            @Override
+            public PartialSolution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return _buckets[_cost]._stacks[_stack][_position++];
+            }
+        };
+    }
+
+    /**
+     * @return the lowest cost in the queue, -1 if it is empty
+     */
+    protected int lowestCost() {
+        return firstBucket() == null ? -1 : _minCost + _base;
+    }
+
+    /**
+     * @return the highest cost in the queue, -1 if it is empty
+     */
+    protected int highestCost() {
+        for (int i = _buckets.length - 1; i >= _minCost; i--) {
+            if (_buckets[i] != null && _buckets[i]._size > 0) {
+                return i + _base;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes all partial solutions of a cost out of the queue
+     * @param cost
+     * @return
+     */
+    protected List<PartialSolution> removeLayer(int cost) {
+        List<PartialSolution> layer = new ArrayList<>();
+        int index = cost - _base;
+        if (index >= 0 && index < _buckets.length && _buckets[index] != null) {
+            Bucket bucket = _buckets[index];
+            for (int i = 0; i < bucket._stacks.length; i++) {
+                for (int j = 0; j < bucket._sizes[i]; j++) {
+                    layer.add(bucket._stacks[i][j]);
+                }
+            }
+            _buckets[index] = null;
+            _size -= layer.size();
+        }
+        return layer;
+    }
+
+    /**
+     * Skips the empty buckets at the start of the queue. They are released, as the stacks of a bucket keep the
+     * size of the most partial solutions it ever held; a bucket that is polled empty and refilled by children
+     * of the same cost is only released once the queue moves past it.
+     * @return the bucket with the lowest cost, null if the queue is empty
+     */
+    private Bucket firstBucket() {
+        if (_size == 0) {
+            return null;
+        }
+        while (_buckets[_minCost] == null || _buckets[_minCost]._size == 0) {
+            _buckets[_minCost++] = null;
+        }
+        return _buckets[_minCost];
+    }
+
+    /**
+     * Partial solutions with more nodes come first, then those with a lower priority
+     */
+    private int stackIndex(PartialSolution ps) {
+        return (_totalNodes - ps._nodeCount) * 2 + ps._priority;
+    }
+
+    /**
+     * The partial solutions of one cost, in a stack per (node count, priority) pair
+     */
+    private static class Bucket {
+        private PartialSolution[][] _stacks;
+        private int[] _sizes;
+        private int _first; // no stack below this index holds a partial solution
+        private int _size;
+
+        Bucket(int totalNodes) {
+            _stacks = new PartialSolution[(totalNodes + 1) * 2][];
+            _sizes = new int[_stacks.length];
+            _first = _stacks.length;
+        }
+
+        void push(PartialSolution ps, int index) {
+            PartialSolution[] stack = _stacks[index];
+            if (stack == null) {
+                stack = _stacks[index] = new PartialSolution[8];
+            } else if (_sizes[index] == stack.length) {
+                stack = _stacks[index] = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[_sizes[index]++] = ps;
+            _first = Math.min(_first, index);
+            _size++;
+        }
+
+        PartialSolution peek() {
+            while (_sizes[_first] == 0) {
+                _first++;
+            }
+            return _stacks[_first][_sizes[_first] - 1];
+        }
+
+        PartialSolution pop() {
+            PartialSolution ps = peek();
+            _stacks[_first][--_sizes[_first]] = null; // let the partial solution be collected once it is expanded
+            _size--;
+            return ps;
+        }
+    }
+}
@@ -1,76 +1,166 @@
 package algorithm;
 
-import logger.Logger;
-
-import java.util.*;
-
 /**
  * This class manages the storage and checking of duplicates
- * It stores partial solutions in a tree set
+ * It stores the fingerprints of partial solutions in an open addressing hash set
  *
- * The tree set is sorted according to the order:
- * cost -> total nodes -> processors allocated -> set of (ordered) start nodes on processors
- * -> each normalised processor size -> each normalised processor nodes
+ * Fingerprints are computed incrementally as slots are added (see Fingerprint) and do not depend
+ * on the order of the processors, so add and contains are O(1) regardless of the schedule size.
+ * Each entry holds both fingerprint lanes, slots are found by linear probing on the first lane.
  * author: nhur714
  */
 public class Cache {
-    private SortedSet<PartialSolution>  _treeSet;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final double MAX_LOAD = 0.5;
+
     private int _processorCount;
-    private int[] _firstNormalisedProcessors;
-    private int[] _secondNormalisedProcessors;
-
-    private Comparator<PartialSolution> comparator = (PartialSolution o1, PartialSolution o2) -> {
-        int costDiff = o1._cost - o2._cost;
-
-        // if the PartialSolutions have the same cost
-        if (costDiff == 0) {
-            int nodeDiff = o1._nodes.size() - o2._nodes.size();
-            // same cost and same number of nodes
-            if (nodeDiff == 0) {
-                // go through starting nodes
-                for (int i = 0; i < _processorCount; i++) {
-                    int startNodeDiff = o1._startingNodes[i] - o2._startingNodes[i];
-                    if (startNodeDiff != 0) {
-                        return startNodeDiff;
-                    }
-                }
-                // go through each processor, return if size different
-                for (int i = 0; i < _processorCount; i++) {
-                    if (o1._startingNodes[i] != 0) {
-                    ArrayList<ProcessorSlot> o1Processor = o1.getProcessors()[o1._startingNodeIndices[i]];
-                    ArrayList<ProcessorSlot> o2Processor = o2.getProcessors()[o2._startingNodeIndices[i]];
-                    int size1 = o1Processor.size();
-                    int size2 = o2Processor.size();
-                    if (size1 != size2) return size1 - size2;
-                    for (int j = 1; j < size1; j++) {
-                        int slotNodeDiff = o1Processor.get(j).getNode().getId() - o2Processor.get(j).getNode().getId();
-                        if (slotNodeDiff != 0) return slotNodeDiff;
-                    }
-                }
-                }
-                // same!
-                return 0;
-            } else {
-                return nodeDiff;
-            }
-        } else {
-            return costDiff;
-        }
-    };
+    private long[] _table; // pairs of (fingerprint, fingerprintCheck), a zero fingerprint marks a free entry
+    private int _mask;
+    private int _size;
 
     public Cache(int processorCount) {
-        TreeSet<PartialSolution> ts = new TreeSet<>(comparator);
-        _treeSet = Collections.synchronizedSortedSet(ts);
+        this(processorCount, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param processorCount
+     * @param capacity initial number of entries, a power of two, 0 for subclasses that keep their own table
+     */
+    protected Cache(int processorCount, int capacity) {
         _processorCount = processorCount;
+        _table = new long[capacity * 2];
+        _mask = capacity - 1;
     }
 
+    /**
+     * Adds the partial solution to the cache
+     * @param ps
+     * @return true if it was not already present
+     */
     public boolean add(PartialSolution ps) {
-        return _treeSet.add(ps);
+        return add(ps._fingerprint, ps._fingerprintCheck, ps._cost);
+    }
+
+    /**
+     * Adds a fingerprint to the cache, approximate caches use the cost to decide how exactly it is kept
+     * @param fingerprint
+     * @param fingerprintCheck
+     * @param cost the cost of the partial solution, Integer.MAX_VALUE if it is not known
+     * @return true if it was not already present
+     */
+    public boolean add(long fingerprint, long fingerprintCheck, int cost) {
+        return add(fingerprint, fingerprintCheck);
+    }
+
+    /**
+     * Adds a fingerprint to the cache
+     * @param fingerprint
+     * @param fingerprintCheck
+     * @return true if it was not already present
+     */
+    public synchronized boolean add(long fingerprint, long fingerprintCheck) {
+        fingerprint = key(fingerprint);
+        int index = find(fingerprint, fingerprintCheck);
+        if (_table[index] != 0) {
+            return false;
+        }
+        _table[index] = fingerprint;
+        _table[index + 1] = fingerprintCheck;
+        if (++_size > (_mask + 1) * MAX_LOAD) {
+            resize();
+        }
+        return true;
     }
 
     public boolean contains(PartialSolution ps) {
-       return _treeSet.contains(ps);
+        return contains(ps._fingerprint, ps._fingerprintCheck, ps._cost);
+    }
+
+    /**
+     * @param fingerprint
+     * @param fingerprintCheck
+     * @param cost a lower bound on the cost of the partial solution, Integer.MAX_VALUE if it is not known
+     * @return true if a partial solution with this fingerprint was added
+     */
+    public boolean contains(long fingerprint, long fingerprintCheck, int cost) {
+        return contains(fingerprint, fingerprintCheck);
+    }
+
+    /**
+     * @param fingerprint
+     * @param fingerprintCheck
+     * @return true if a partial solution with this fingerprint was added
+     */
+    public synchronized boolean contains(long fingerprint, long fingerprintCheck) {
+        return _table[find(key(fingerprint), fingerprintCheck)] != 0;
     }
 
+    public synchronized int size() {
+        return _size;
+    }
+
+    /**
+     * @return the fingerprints in the cache, as (fingerprint, fingerprintCheck) pairs
+     */
+    public synchronized long[] entries() {
+        long[] entries = new long[_size * 2];
+        int count = 0;
+        for (int i = 0; i < _table.length; i += 2) {
+            if (_table[i] != 0) {
+                entries[count++] = _table[i];
+                entries[count++] = _table[i + 1];
+            }
+        }
+        return entries;
+    }
 
+    /**
+     * A cache holding the same fingerprints that scales to a number of threads adding to it at once
+     * @param threads
+     * @return a StripedCache with a few stripes per thread
+     */
+    public Cache forThreads(int threads) {
+        StripedCache cache = new StripedCache(_processorCount, Integer.highestOneBit(Math.max(1, threads)) * 4);
+        long[] entries = entries();
+        for (int i = 0; i < entries.length; i += 2) {
+            cache.add(entries[i], entries[i + 1]);
+        }
+        return cache;
+    }
+
+    /**
+     * Linear probe for the entry holding the fingerprint, or the free entry it would be stored in
+     * @return index of the entry in _table
+     */
+    private int find(long fingerprint, long fingerprintCheck) {
+        int slot = (int) fingerprint & _mask;
+        while (true) {
+            int index = slot * 2;
+            long stored = _table[index];
+            if (stored == 0 || (stored == fingerprint && _table[index + 1] == fingerprintCheck)) {
+                return index;
+            }
+            slot = (slot + 1) & _mask;
+        }
+    }
+
+    private void resize() {
+        long[] old = _table;
+        _table = new long[old.length * 2];
+        _mask = (_mask << 1) | 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0) {
+                int index = find(old[i], old[i + 1]);
+                _table[index] = old[i];
+                _table[index + 1] = old[i + 1];
+            }
+        }
+    }
+
+    /**
+     * zero marks free entries, so it is remapped to a fixed non zero value
+     */
+    protected static long key(long fingerprint) {
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
 }
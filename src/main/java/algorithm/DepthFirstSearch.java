@@ -0,0 +1,127 @@
+package algorithm;
+
+import graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Depth first alternatives to the best first search of PSPriorityQueue, for graphs whose frontier does not fit
+ * in memory. Only the partial solutions on the current path and their siblings are kept. Children are generated
+ * by PSManager, so they are pruned by the same equivalence check and the upper bound of the incumbent, which
+ * starts as a list schedule.
+ *
+ * Instead of the Cache, duplicates are detected with a fixed size table of fingerprints that overwrites older
+ * entries, so memory use does not grow with the search and a duplicate that was forgotten is just explored again.
+ * The table has 2^(2 * nodes) entries of 16 bytes, at least 1 KB and at most 16 MB from ten nodes on.
+ */
+public class DepthFirstSearch {
+    private static final int MIN_TRANSPOSITION_BITS = 6;
+    private static final int MAX_TRANSPOSITION_BITS = 20;
+
+    private Graph _graph;
+    private int _processors;
+    private PSManager _psManager;
+    private Incumbent _incumbent;
+    private long[] _transpositions; // fingerprint pairs of explored partial solutions
+    private int _transpositionMask;
+
+    private int _lowerBound; // proven lower bound, the search stops once the incumbent reaches it
+    private int _threshold; // children with a higher cost are not explored in this iteration
+    private int _nextThreshold; // lowest cost of the children that were over the threshold
+
+    public DepthFirstSearch(Graph graph, int processors) {
+        _graph = graph;
+        _processors = processors;
+        _psManager = new PSManager(processors, graph, null, 0);
+        _incumbent = new Incumbent();
+        int bits = transpositionBits(graph.getNodes().size());
+        _transpositions = new long[2 << bits];
+        _transpositionMask = (1 << bits) - 1;
+        _incumbent.offer(_psManager.completeGreedily(new PartialSolution(processors, graph)));
+    }
+
+    /**
+     * Iterative deepening A*: repeated depth first searches that only explore partial solutions with a cost up
+     * to a threshold, which starts at the underestimate of the empty schedule and is raised to the lowest cost
+     * that was cut off, until the incumbent is within the threshold and therefore optimal.
+     * @return an optimal schedule
+     */
+    public PartialSolution iterativeDeepening() {
+        PartialSolution empty = new PartialSolution(_processors, _graph);
+        _psManager.calculateUnderestimate(empty);
+        _threshold = empty._cost;
+        while (_threshold < _incumbent.getBound()) {
+            _lowerBound = _threshold;
+            _nextThreshold = Integer.MAX_VALUE;
+            Arrays.fill(_transpositions, 0); // only partial solutions explored with the same threshold can be skipped
+            search(empty);
+            _threshold = _nextThreshold;
+        }
+        return _incumbent.getSolution();
+    }
+
+    /**
+     * Depth first branch and bound: a single depth first search that explores children in order of cost and
+     * discards every partial solution whose underestimate reaches the incumbent, which improves whenever a
+     * better complete schedule is found.
+     * @return an optimal schedule
+     */
+    public PartialSolution branchAndBound() {
+        PartialSolution empty = new PartialSolution(_processors, _graph);
+        _psManager.calculateUnderestimate(empty);
+        _lowerBound = empty._cost;
+        _threshold = Integer.MAX_VALUE;
+        if (_lowerBound < _incumbent.getBound()) {
+            search(empty);
+        }
+        return _incumbent.getSolution();
+    }
+
+    /**
+     * Explores the children of a partial solution in order of cost
+     * @param ps
+     */
+    private void search(PartialSolution ps) {
+        PSPriorityQueue children = new PSPriorityQueue(_graph, _processors);
+        children.setIncumbent(_incumbent);
+        _psManager.generateChildren(ps, children);
+        // stops at the first child that can not beat the incumbent, or is complete and became the incumbent
+        while (children.hasNext()) {
+            PartialSolution child = children.getCurrentPartialSolution();
+            if (child._cost > _threshold) {
+                _nextThreshold = Math.min(_nextThreshold, child._cost);
+                return; // the remaining children cost at least as much
+            }
+            if (!explored(child)) {
+                search(child);
+            }
+            if (_incumbent.getBound() <= _lowerBound) {
+                return; // the incumbent is optimal
+            }
+        }
+    }
+
+    /**
+     * Records a partial solution as explored
+     * @param ps
+     * @return true if it, or a partial solution with the same schedule, was already explored
+     */
+    private boolean explored(PartialSolution ps) {
+        int index = ((int) ps._fingerprint & _transpositionMask) * 2;
+        if (_transpositions[index] == ps._fingerprint && _transpositions[index + 1] == ps._fingerprintCheck) {
+            return true;
+        }
+        _transpositions[index] = ps._fingerprint;
+        _transpositions[index + 1] = ps._fingerprintCheck;
+        return false;
+    }
+
+    /**
+     * @param nodeCount
+     * @return log2 of the number of entries of the transposition table, a small graph has few partial solutions
+     * and does not need a large one
+     */
+    private static int transpositionBits(int nodeCount) {
+        return Math.max(MIN_TRANSPOSITION_BITS, Math.min(MAX_TRANSPOSITION_BITS, 2 * nodeCount));
+    }
+}
@@ -0,0 +1,93 @@
+package algorithm;
+
+/**
+ * Zobrist style hashing of schedules, used to identify duplicate partial solutions in the Cache.
+ *
+ * Each scheduled (node, start time) pair has a pseudo random key. A processor's hash is the XOR of the
+ * keys of its slots, and the fingerprint of a partial solution is the sum of the mixed processor hashes.
+ * As the sum does not depend on which processor holds which hash, partial solutions that only differ
+ * by a permutation of the processors get the same fingerprint.
+ *
+ * Two independent lanes are kept so a fingerprint is effectively 128 bits wide.
+ */
+public final class Fingerprint {
+
+    public static final int LANES = 2;
+
+    private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL };
+
+    private Fingerprint() {}
+
+    /**
+     * Pseudo random key of a node starting at the given time
+     * @param lane the fingerprint lane (0 or 1)
+     * @param nodeId
+     * @param start
+     * @return
+     */
+    public static long slotKey(int lane, int nodeId, int start) {
+        return mix(SEEDS[lane] + nodeId * 0xD6E8FEB86659FD93L + start * 0xFF51AFD7ED558CCDL);
+    }
+
+    /**
+     * splitmix64 finaliser, mix(0) is 0 so empty processors do not contribute to a fingerprint
+     * @param z
+     * @return
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Updates the fingerprint of a partial solution for a slot added to one of its processors
+     * @param ps the partial solution, its schedule has not had the slot added yet
+     * @param nodeId
+     * @param start
+     * @param processor
+     */
+    public static void addSlot(PartialSolution ps, int nodeId, int start, int processor) {
+        long[] processorHashes = ps._schedule._processorHashes;
+        int index = processor * LANES;
+        long oldHash = processorHashes[index];
+        long newHash = oldHash ^ slotKey(0, nodeId, start);
+        processorHashes[index] = newHash;
+        ps._fingerprint += mix(newHash) - mix(oldHash);
+
+        oldHash = processorHashes[index + 1];
+        newHash = oldHash ^ slotKey(1, nodeId, start);
+        processorHashes[index + 1] = newHash;
+        ps._fingerprintCheck += mix(newHash) - mix(oldHash);
+    }
+
+    /**
+     * The fingerprint a partial solution would have after a slot is added, without changing its schedule.
+     * Used to recognise a child as a duplicate before it is created.
+     * @param fingerprint the fingerprint lane of the partial solution
+     * @param processorHashes the hash lanes of the materialised schedule
+     * @param lane
+     * @param nodeId
+     * @param start
+     * @param processor
+     * @return
+     */
+    public static long afterSlot(long fingerprint, long[] processorHashes, int lane, int nodeId, int start,
+                                 int processor) {
+        long oldHash = processorHashes[processor * LANES + lane];
+        return fingerprint + mix(oldHash ^ slotKey(lane, nodeId, start)) - mix(oldHash);
+    }
+
+    /**
+     * Adds a slot to the hash lanes of its processor, or removes it again if it is already there
+     * @param processorHashes
+     * @param nodeId
+     * @param start
+     * @param processor
+     */
+    public static void toggleSlot(long[] processorHashes, int nodeId, int start, int processor) {
+        int index = processor * LANES;
+        processorHashes[index] ^= slotKey(0, nodeId, start);
+        processorHashes[index + 1] ^= slotKey(1, nodeId, start);
+    }
+}
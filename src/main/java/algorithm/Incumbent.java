@@ -0,0 +1,47 @@
+package algorithm;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The best complete schedule found so far, shared by every queue searching the same graph.
+ * Its finish time is an upper bound on the optimal finish time, so partial solutions whose cost
+ * underestimate is not below it can never lead to a better schedule and are discarded.
+ *
+ * It is read before every expansion and every child that is added, so it is lock free: the bound is read
+ * from the solution itself, which is only replaced by compare and set.
+ */
+public class Incumbent {
+    private AtomicReference<PartialSolution> _solution = new AtomicReference<>();
+
+    /**
+     * Makes a complete schedule the incumbent if it finishes earlier than the current one
+     * @param ps a complete schedule
+     * @return true if it became the incumbent
+     */
+    public boolean offer(PartialSolution ps) {
+        while (true) {
+            PartialSolution current = _solution.get();
+            if (current != null && ps._currentFinishTime >= current._currentFinishTime) {
+                return false;
+            }
+            if (_solution.compareAndSet(current, ps)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the finish time of the incumbent, Integer.MAX_VALUE if there is none
+     */
+    public int getBound() {
+        PartialSolution solution = _solution.get();
+        return solution == null ? Integer.MAX_VALUE : solution._currentFinishTime;
+    }
+
+    /**
+     * @return the incumbent, null if there is none
+     */
+    public PartialSolution getSolution() {
+        return _solution.get();
+    }
+}
@@ -0,0 +1,129 @@
+package algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A Cache whose open addressing table lives in a memory mapped temporary file instead of on the Java heap,
+ * so the number of partial solutions it holds is not limited by -Xmx and the garbage collector never scans it.
+ * The operating system pages the table in and out as needed.
+ *
+ * The size is fixed when it is created (see the -c option of the Scheduler). Once the table is full, new
+ * fingerprints are no longer stored and their partial solutions are treated as new, so a duplicate may be
+ * explored again but nothing is pruned wrongly.
+ */
+public class MappedCache extends Cache {
+    private static final int ENTRY_BYTES = 16; // fingerprint and fingerprintCheck
+    private static final int SEGMENT_BITS = 26; // entries per mapping, a mapping can not exceed 2GB
+    private static final double MAX_LOAD = 0.75;
+
+    private LongBuffer[] _segments;
+    private long _mask;
+    private long _maxSize;
+    private long _size;
+
+    /**
+     * @param processorCount
+     * @param megabytes size of the table, rounded down to a power of two number of entries
+     * @throws IOException if the temporary file can not be created or mapped
+     */
+    public MappedCache(int processorCount, int megabytes) throws IOException {
+        super(processorCount, 0);
+        long entries = Long.highestOneBit(Math.max(1, (long) megabytes << 20) / ENTRY_BYTES);
+        _mask = entries - 1;
+        _maxSize = (long) (entries * MAX_LOAD);
+
+        File file = File.createTempFile("cache", ".bin");
+        file.deleteOnExit();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long segmentEntries = Math.min(entries, 1L << SEGMENT_BITS);
+            _segments = new LongBuffer[(int) (entries / segmentEntries)];
+            for (int i = 0; i < _segments.length; i++) {
+                // the file is extended by the mapping and reads as zeros, i.e. free entries
+                _segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentEntries * ENTRY_BYTES,
+                        segmentEntries * ENTRY_BYTES).asLongBuffer();
+            }
+        }
+        file.delete(); // the mappings stay valid
+    }
+
+    @Override
+    public synchronized boolean add(long fingerprint, long fingerprintCheck) {
+        fingerprint = key(fingerprint);
+        long slot = find(fingerprint, fingerprintCheck);
+        LongBuffer segment = _segments[(int) (slot >>> SEGMENT_BITS)];
+        int index = (int) (slot & ((1L << SEGMENT_BITS) - 1)) * 2;
+        if (segment.get(index) != 0) {
+            return false;
+        }
+        if (_size < _maxSize) {
+            segment.put(index, fingerprint);
+            segment.put(index + 1, fingerprintCheck);
+            _size++;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(long fingerprint, long fingerprintCheck) {
+        long slot = find(key(fingerprint), fingerprintCheck);
+        return _segments[(int) (slot >>> SEGMENT_BITS)].get((int) (slot & ((1L << SEGMENT_BITS) - 1)) * 2) != 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(_size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the fingerprints in the cache, as (fingerprint, fingerprintCheck) pairs
+     * @throws IllegalStateException if there are more than fit in an array
+     */
+    @Override
+    public synchronized long[] entries() {
+        long length = _size * 2;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(_size + " fingerprints are too many to list.");
+        }
+        long[] entries = new long[(int) length];
+        int count = 0;
+        for (LongBuffer segment : _segments) {
+            for (int i = 0; i < segment.capacity(); i += 2) {
+                if (segment.get(i) != 0) {
+                    entries[count++] = segment.get(i);
+                    entries[count++] = segment.get(i + 1);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The table has a fixed size outside the heap, so it is kept as one table rather than copied into stripes
+     */
+    @Override
+    public Cache forThreads(int threads) {
+        return this;
+    }
+
+    /**
+     * Linear probe for the entry holding the fingerprint, or the free entry it would be stored in
+     * @return the number of the entry
+     */
+    private long find(long fingerprint, long fingerprintCheck) {
+        long slot = fingerprint & _mask;
+        while (true) {
+            LongBuffer segment = _segments[(int) (slot >>> SEGMENT_BITS)];
+            int index = (int) (slot & ((1L << SEGMENT_BITS) - 1)) * 2;
+            long stored = segment.get(index);
+            if (stored == 0 || (stored == fingerprint && segment.get(index + 1) == fingerprintCheck)) {
+                return slot;
+            }
+            slot = (slot + 1) & _mask;
+        }
+    }
+}
@@ -1,14 +1,9 @@
 package algorithm;
 
-import graph.Edge;
+import graph.FrozenGraph;
 import graph.Graph;
 import graph.Node;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-
 /**
  * This static class utilises the Partial solutions to generate children partial solutions.
  * author: Sam Li, Edison Rho, Nathan Hur
@@ -16,14 +11,26 @@ import java.util.List;
 
 public class PSManager {
 
+    //every DIVE_INTERVAL expansions, the partial solution being expanded is completed greedily to improve the incumbent
+    private static final int DIVE_INTERVAL = 1000;
+
     // identify each PSManager on each thread
     public int _id;
 
     protected Graph _graph;
     protected int _numberOfProcessors;
 
-    //calculate all bottom level work values and cache them for the cost function
-    protected HashMap<String, Integer> _bottomLevelWork;
+    //array backed graph data, indexed by node index
+    protected FrozenGraph _frozenGraph;
+    protected int[] _weights;
+    protected int[] _bottomLevels;
+    protected int[] _predecessorOffsets;
+    protected int[] _predecessors;
+    protected int[] _predecessorCosts;
+    protected int[] _successorOffsets;
+    protected int[] _successors;
+    protected int[] _successorCosts;
+    protected int[] _identicalSuccessors;
     protected Cache _cache;
 
     //cache the constant portion of the idle time heuristic (total work / processors)
@@ -33,6 +40,15 @@ public class PSManager {
     private int[] _maxPredecessorTime;
     private int[] _earliestTimes;
 
+    //earliest times of the free nodes of the partial solution being expanded, indexed by node index.
+    //children only differ from it on one processor, so their data ready times are derived from these
+    private int[] _expandedFreeNodes;
+    private int[][] _expandedEarliestTimes;
+    private int[] _minEarliestTimes;
+    private int[] _minEarliestProcessors;
+    private int[] _secondMinEarliestTimes;
+    private int _expansions;
+
     // for stats
     public int[] _nodeVisitCounts;
     public int _currentFinishTime;
@@ -51,10 +67,30 @@ public class PSManager {
         _numberOfProcessors = processors;
         _graph = graph;
         _idleConstantHeuristic = (double)graph.totalMinimumWork() / processors;
-        _bottomLevelWork = graph._bottomLevelWork;
+        _frozenGraph = graph.getFrozenGraph();
+        _weights = _frozenGraph._weights;
+        _bottomLevels = _frozenGraph._bottomLevels;
+        _predecessorOffsets = _frozenGraph._predecessorOffsets;
+        _predecessors = _frozenGraph._predecessors;
+        _predecessorCosts = _frozenGraph._predecessorCosts;
+        _successorOffsets = _frozenGraph._successorOffsets;
+        _successors = _frozenGraph._successors;
+        _successorCosts = _frozenGraph._successorCosts;
+        _identicalSuccessors = _frozenGraph._identicalSuccessors;
         _cache = new Cache(processors);
+        int nodeCount = graph.getNodes().size();
+        _expandedEarliestTimes = new int[nodeCount][];
+        _minEarliestTimes = new int[nodeCount];
+        _minEarliestProcessors = new int[nodeCount];
+        _secondMinEarliestTimes = new int[nodeCount];
     }
 
+    /**
+     * @param processors
+     * @param graph
+     * @param cache the shared cache, null to not check for duplicates at all
+     * @param id
+     */
     public PSManager(int processors, Graph graph, Cache cache, int id) {
         this(processors, graph);
         _id = id;
@@ -74,54 +110,119 @@ public class PSManager {
      * @return void
      */
     public void generateChildren(PartialSolution parentPS, PSPriorityQueue queue) {
-        List<Node> freeNodes = getFreeNodes(parentPS);
-        PartialSolution partialSolution = null;
+        Schedule schedule = parentPS.materialise();
+        if (_expansions++ % DIVE_INTERVAL == 0) {
+            queue.getIncumbent().offer(completeGreedily(parentPS));
+        }
+        int[] freeNodes = getFreeNodes(schedule);
+        cacheEarliestTimes(schedule, freeNodes);
+        // if the free nodes can be scheduled in a fixed order, only the first one needs to be branched on
+        int fixedOrderNode = fixedOrderNode(schedule, freeNodes);
+        long[] skippedNodes = parentPS._skippedNodes;
+        if (fixedOrderNode != -1) {
+            skippedNodes = skippedNodes == null ? schedule._freeNodes.clone() : skippedNodes.clone();
+            for (int i = 0; i < skippedNodes.length; i++) {
+                skippedNodes[i] |= schedule._freeNodes[i];
+            }
+            skippedNodes[fixedOrderNode >>> 6] &= ~(1L << fixedOrderNode);
+            freeNodes = new int[] { fixedOrderNode };
+        }
+        Incumbent incumbent = queue.getIncumbent();
         //for every free node, create the partial solutions that can be generated
-        for (Node freeNode: freeNodes) {
+        for (int freeNode: freeNodes) {
+                if (parentPS._cost >= incumbent.getBound()) {
+                    break; // children cost at least as much as their parent, so none of them can beat the incumbent
+                }
                 //calculate latest time to put on (dependency)
-                int[] earliestTimeOnProcessor = earliestTimeOnProcessors(parentPS, freeNode);
+                int[] earliestTimeOnProcessor = _expandedEarliestTimes[freeNode];
                 //for every processor, create partial solution that can be generated by scheduling the
                 //free variable to that processor. Calculate the new cost and add it to the priority queue.
                 if (parentPS._zeroStarts > 1) {
                     boolean done = false;
                     for (int i = 0; i < _numberOfProcessors; i++) {
                         int earliestTime = earliestTimeOnProcessor[i];
-                        if (parentPS._startingNodes[i] != 0) {
-                            partialSolution = addSlotToProcessor(parentPS, freeNode, i, earliestTime);
-                            checkAndAdd(partialSolution, i, queue);
+                        if (schedule._latestNodes[i] != -1) {
+                            generateChild(parentPS, freeNode, i, earliestTime, skippedNodes, queue);
                         } else if (!done) { // if we haven't added it to an empty processor
-                            partialSolution = addSlotToProcessor(parentPS, freeNode, i, earliestTime);
-                            checkAndAdd(partialSolution, i, queue);
+                            generateChild(parentPS, freeNode, i, earliestTime, skippedNodes, queue);
                             done = true;
                         }
                     }
                 } else {
                     for (int i = 0; i < _numberOfProcessors; i++) {
-                        partialSolution = addSlotToProcessor(parentPS, freeNode, i, earliestTimeOnProcessor[i]);
-                        checkAndAdd(partialSolution, i, queue);
+                        generateChild(parentPS, freeNode, i, earliestTimeOnProcessor[i], skippedNodes, queue);
                     }
                 }
             }
-        _cache.add(parentPS);
+        if (_cache != null) {
+            _cache.add(parentPS);
+        }
+        parentPS.release();
+    }
+
+    /**
+     * Completes a partial solution by list scheduling: the free node with the highest bottom level is added to
+     * the processor it can start on earliest, until all nodes are scheduled.
+     * @param ps
+     * @return the complete schedule, its cost is its finish time
+     */
+    public PartialSolution completeGreedily(PartialSolution ps) {
+        boolean materialised = ps._schedule != null;
+        Schedule schedule = ps.materialise();
+        PartialSolution current = ps;
+        while (current._nodeCount < _weights.length) {
+            int node = -1;
+            for (int index : getFreeNodes(schedule)) {
+                if (node == -1 || _bottomLevels[index] > _bottomLevels[node]) {
+                    node = index;
+                }
+            }
+            int[] times = earliestTimeOnProcessors(schedule, node);
+            int processor = 0;
+            for (int i = 1; i < times.length; i++) {
+                if (times[i] < times[processor]) {
+                    processor = i;
+                }
+            }
+            PartialSolution child = new PartialSolution(current);
+            addSlot(child, node, times[processor], processor);
+            current = child;
+        }
+        current._cost = current._currentFinishTime;
+        // hand the schedule back up the chain to the partial solution we started from
+        for (PartialSolution slot = current; slot != ps; slot = slot._parent) {
+            removeSlot(slot);
+        }
+        if (!materialised) {
+            ps.release();
+        }
+        return current;
     }
 
     public Cache getCache() {
         return _cache;
     }
 
+    /**
+     * Replaces the cache, e.g. by a MappedCache
+     * @param cache
+     */
+    public void setCache(Cache cache) {
+        _cache = cache;
+    }
+
     /**
      * Function to calculate and update the work for a partialSolution aka the cost function f(s)
      * @param ps a partial solution
      */
     public void calculateUnderestimate(PartialSolution ps) {
+        calculateUnderestimate(ps, calculateDataReadyTime(ps));
+    }
 
-
+    private void calculateUnderestimate(PartialSolution ps, int dataReadyTimeHeuristic) {
         // update idle time heuristic TODO: optimise
         int idleTimeHeuristic = (int)Math.ceil(_idleConstantHeuristic + (ps._idleTime / _numberOfProcessors));
 
-        // data ready time heuristic
-        int dataReadyTimeHeuristic = calculateDataReadyTime(ps);
-
         // update estimate
         ps._cost = Math.max(Math.max(Math.max(ps._bottomLevelWork, ps._cost), idleTimeHeuristic), dataReadyTimeHeuristic);
     }
@@ -132,20 +233,22 @@ public class PSManager {
      * @return
      */
     public int calculateDataReadyTime(PartialSolution ps){
+        boolean materialised = ps._schedule != null;
+        Schedule schedule = ps.materialise();
         // construct a list of all free nodes in the given partial solution to iterate over
-        List<Node> freeNodeList = getFreeNodes(ps);
+        int[] freeNodeList = getFreeNodes(schedule);
         int maximumDRT = 0;
 
         // for every free node
-        for(Node freeNode : freeNodeList){
+        for(int freeNode : freeNodeList){
             // get minimum drt on each processor
             int minDrt = -1;
 
             // get the blw for the free node
-            int blw = _bottomLevelWork.get(freeNode.getName());
+            int blw = _bottomLevels[freeNode];
 
             //for the earliest time this given freenode can be placed on each processor
-            for (int i : earliestTimeOnProcessors(ps, freeNode)) {
+            for (int i : earliestTimeOnProcessors(schedule, freeNode)) {
                 if (i < minDrt || minDrt == -1) { // if this earliest time is earlier than minDrt
                     minDrt = i; // update it
                 }
@@ -158,229 +261,478 @@ public class PSManager {
                 maximumDRT = dataReadyFinish;
             }
         }
+        if (!materialised) {
+            ps.release();
+        }
         return maximumDRT;
     }
 
     /**
-     * gets all the freenodes by finding all nodes not on the PartialSolution that have all their
-     * predecessors on the PartialSolution
-     * @param parentPS
-     * @return
+     * Calculates and caches the earliest times of the free nodes of a partial solution that is about to be
+     * expanded, along with the minimum, its processor and the second minimum of each.
+     * @param schedule the schedule of the partial solution
+     * @param freeNodes
      */
-    private List<Node> getFreeNodes(PartialSolution parentPS) {
-        List<Node> freeNodes = new ArrayList<Node>();
-        List<Node> nodes = _graph.getNodes();
-        //get all the free variables from list of all nodes in graph
-        for (Node node : nodes) {
-            if (parentPS._nodes.contains(node.toString())) {
-            } else {
-                boolean hasMissingSuccessor = false;
-                for (Edge e : node.getIncoming()) {
-                    if (!parentPS._nodes.contains(e.getFrom().getName())) {
-                        hasMissingSuccessor = true;
-                    }
+    private void cacheEarliestTimes(Schedule schedule, int[] freeNodes) {
+        _expandedFreeNodes = freeNodes;
+        for (int index : freeNodes) {
+            int[] times = earliestTimeOnProcessors(schedule, index);
+            int min = Integer.MAX_VALUE;
+            int minProcessor = -1;
+            int secondMin = Integer.MAX_VALUE;
+            for (int i = 0; i < times.length; i++) {
+                if (times[i] < min) {
+                    secondMin = min;
+                    min = times[i];
+                    minProcessor = i;
+                } else if (times[i] < secondMin) {
+                    secondMin = times[i];
                 }
-                if (!hasMissingSuccessor) {
-                    freeNodes.add(node);
+            }
+            _expandedEarliestTimes[index] = times;
+            _minEarliestTimes[index] = min;
+            _minEarliestProcessors[index] = minProcessor;
+            _secondMinEarliestTimes[index] = secondMin;
+        }
+    }
+
+    /**
+     * Data ready time heuristic of a child of the partial solution being expanded, see cacheEarliestTimes.
+     * Only the processor the node was added to changes for the free nodes of the parent, the children and
+     * the identical successor of the added node that became free are calculated in full.
+     * @param schedule the schedule of the child partial solution
+     * @param addedNode
+     * @param processor
+     * @return the same value as calculateDataReadyTime of the child
+     */
+    protected int childDataReadyTime(Schedule schedule, int addedNode, int processor) {
+        int processorFinishTime = schedule._processorFinishTimes[processor];
+        int maximumDRT = 0;
+        for (int index : _expandedFreeNodes) {
+            if (index != addedNode) {
+                int minDrt = _minEarliestTimes[index];
+                if (_minEarliestProcessors[index] == processor) {
+                    int newTime = Math.max(processorFinishTime, _expandedEarliestTimes[index][processor]);
+                    minDrt = Math.min(_secondMinEarliestTimes[index], newTime);
                 }
+                maximumDRT = Math.max(maximumDRT, _bottomLevels[index] + minDrt);
+            }
+        }
+        for (int k = _successorOffsets[addedNode]; k < _successorOffsets[addedNode + 1]; k++) {
+            maximumDRT = Math.max(maximumDRT, freedDataReadyTime(schedule, _successors[k]));
+        }
+        int identical = _identicalSuccessors[addedNode];
+        if (identical != -1) {
+            maximumDRT = Math.max(maximumDRT, freedDataReadyTime(schedule, identical));
+        }
+        return maximumDRT;
+    }
+
+    /**
+     * @param schedule
+     * @param index a node that may have become free by the slot that was just added
+     * @return the data ready time of the node, 0 if it is not free
+     */
+    private int freedDataReadyTime(Schedule schedule, int index) {
+        if ((schedule._freeNodes[index >>> 6] & (1L << index)) == 0) {
+            return 0;
+        }
+        int minDrt = Integer.MAX_VALUE;
+        for (int time : earliestTimeOnProcessors(schedule, index)) {
+            minDrt = Math.min(minDrt, time);
+        }
+        return _bottomLevels[index] + minDrt;
+    }
+
+    /**
+     * gets all the freenodes, i.e. the nodes not on the PartialSolution that have all their
+     * predecessors on the PartialSolution. These are maintained by addSlot, so this just reads the bitset.
+     * @param schedule
+     * @return
+     */
+    private int[] getFreeNodes(Schedule schedule) {
+        long[] free = schedule._freeNodes;
+        int count = 0;
+        for (long word : free) {
+            count += Long.bitCount(word);
+        }
+        int[] freeNodes = new int[count];
+        count = 0;
+        for (int i = 0; i < free.length; i++) {
+            long word = free[i];
+            while (word != 0) {
+                freeNodes[count++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
             }
         }
         return freeNodes;
     }
 
+    /**
+     * Checks if the free nodes can be scheduled in a fixed order without losing optimality (Orr and Sinnen):
+     * every free node has at most one parent and one child, the nodes with a child all share the same child and
+     * the nodes with a parent all have it on the same processor. Ordered by the time their data is ready, with
+     * ties broken by decreasing cost of the outgoing edge, the outgoing edge costs must then also be decreasing.
+     * Nodes with an identical successor are left to the order of the identical nodes.
+     * @param schedule
+     * @param freeNodes
+     * @return the first node of the fixed order, -1 if there is none
+     */
+    private int fixedOrderNode(Schedule schedule, int[] freeNodes) {
+        if (freeNodes.length < 2) {
+            return -1;
+        }
+        int child = -1;
+        int parentProcessor = -1;
+        int[] order = new int[freeNodes.length];
+        int[] readyTimes = new int[freeNodes.length];
+        int[] outCosts = new int[freeNodes.length];
+        for (int n = 0; n < freeNodes.length; n++) {
+            int node = freeNodes[n];
+            int parentCount = _predecessorOffsets[node + 1] - _predecessorOffsets[node];
+            int childCount = _successorOffsets[node + 1] - _successorOffsets[node];
+            if (parentCount > 1 || childCount > 1 || _identicalSuccessors[node] != -1) {
+                return -1; // an identical successor already fixes the order of the node
+            }
+            int readyTime = 0;
+            int outCost = 0;
+            if (parentCount == 1) {
+                int k = _predecessorOffsets[node];
+                int parent = _predecessors[k];
+                if (parentProcessor != -1 && schedule._nodeProcessors[parent] != parentProcessor) {
+                    return -1;
+                }
+                parentProcessor = schedule._nodeProcessors[parent];
+                readyTime = schedule._startTimes[parent] + _weights[parent] + _predecessorCosts[k];
+            }
+            if (childCount == 1) {
+                int k = _successorOffsets[node];
+                if (child != -1 && _successors[k] != child) {
+                    return -1;
+                }
+                child = _successors[k];
+                outCost = _successorCosts[k];
+            }
+            // insertion sort by ready time, then decreasing outgoing edge cost
+            int j = n;
+            while (j > 0 && (readyTimes[j - 1] > readyTime || (readyTimes[j - 1] == readyTime && outCosts[j - 1] < outCost))) {
+                order[j] = order[j - 1];
+                readyTimes[j] = readyTimes[j - 1];
+                outCosts[j] = outCosts[j - 1];
+                j--;
+            }
+            order[j] = node;
+            readyTimes[j] = readyTime;
+            outCosts[j] = outCost;
+        }
+        for (int n = 1; n < order.length; n++) {
+            if (outCosts[n] > outCosts[n - 1]) {
+                return -1;
+            }
+        }
+        return order[0];
+    }
+
     /**
      * This finds the earliest time on each processor that a node can be scheduled to
-     * based on successor nodes and the latest slot finishing time on each processor.
-     * @param parentPS
+     * based on predecessor nodes and the latest slot finishing time on each processor.
+     * @param schedule
      * @param freeNode
      * @return int[] index is the processor, value is the time
      */
-    private int[] earliestTimeOnProcessors(PartialSolution parentPS, Node freeNode) {
+    private int[] earliestTimeOnProcessors(Schedule schedule, int freeNode) {
         _earliestTimes = new int[_numberOfProcessors];
         _maxPredecessorTime = new int[_numberOfProcessors];
-        ArrayList<Node> parents = freeNode.getParentNodes();
         int maxTime = 0;
-        ProcessorSlot maxSlot = null;
-        // iterate through each processor and check for successor nodes. Find the maximum time and edge time (for transfer)
-        for (int i = 0; i < _numberOfProcessors; i++) {
-            ArrayList<ProcessorSlot> processor = parentPS._processors[i];
-            for (int j = processor.size() - 1; j >= 0; j--) {
-                ProcessorSlot slot = processor.get(j);
-                if (parents.contains(slot.getNode())) { // slot contains a predecessor
-                    int slotProcessor = slot.getProcessor();
-                    Edge parentEdge = _graph.getEdge(slot.getNode().getId(), freeNode.getId());
-                    int parentTime = parentEdge.getWeight() + slot.getFinish();
-                    if (parentTime > _maxPredecessorTime[slotProcessor]) { // can only be max if it was at least greater than the prev one in processor
-                        _maxPredecessorTime[slotProcessor] = parentTime;
-                        if (parentTime > maxTime) {
-                            maxTime = parentTime;
-                            maxSlot = slot;
-                        }
+        int maxProcessor = -1;
+        // iterate through each predecessor. Find the maximum time and edge time (for transfer) on each processor
+        for (int k = _predecessorOffsets[freeNode]; k < _predecessorOffsets[freeNode + 1]; k++) {
+            int parent = _predecessors[k];
+            int slotProcessor = schedule._nodeProcessors[parent];
+            if (slotProcessor != PartialSolution.UNSCHEDULED) {
+                int parentTime = _predecessorCosts[k] + schedule._startTimes[parent] + _weights[parent];
+                if (parentTime > _maxPredecessorTime[slotProcessor]) { // can only be max if it was at least greater than the prev one in processor
+                    _maxPredecessorTime[slotProcessor] = parentTime;
+                    if (parentTime > maxTime) {
+                        maxTime = parentTime;
+                        maxProcessor = slotProcessor;
                     }
                 }
             }
         }
 
-        //DEBUG
-        if (maxSlot == null) { // no predecessor constraints, we can schedule as early as possible on each processor based on their last slot
+        if (maxProcessor == -1) { // no predecessor constraints, we can schedule as early as possible on each processor based on their last slot
             for (int i = 0; i < _numberOfProcessors; i++) {
-                ProcessorSlot latestSlot = parentPS._latestSlots[i];
-                if (latestSlot == null) {
-                    _earliestTimes[i] = 0; // there is no slot on the processor, we can start at 0
-                } else {
-                    _earliestTimes[i] = latestSlot.getFinish();
-                }
+                _earliestTimes[i] = schedule._processorFinishTimes[i];
             }
             return _earliestTimes;
         } else { // predecessor constraint is there, we can schedule at earliest maxSlot.finishTime + maxEdge
-            // we need to find the second maxSlot for predecessor constraints on the maxSlotProcessor
-            int maxSuccessorProcessor = maxSlot.getProcessor();
-            int secondMaxSuccessorTime = 0;
-            ProcessorSlot finalSlot;
-            int finalSlotTime;
+            // we need to find the second max predecessor time for predecessor constraints on the maxProcessor
+            int secondMaxPredecessorTime = 0;
             for (int i = 0; i < _numberOfProcessors; i++) {
-                finalSlot = parentPS._latestSlots[i];
-                finalSlotTime = 0;
-                if (finalSlot != null) finalSlotTime = finalSlot.getFinish();
-                _earliestTimes[i] = Math.max(finalSlotTime, maxTime);
-                if (_maxPredecessorTime[i] > secondMaxSuccessorTime && i != maxSuccessorProcessor) {
-                    secondMaxSuccessorTime = _maxPredecessorTime[i];
+                _earliestTimes[i] = Math.max(schedule._processorFinishTimes[i], maxTime);
+                if (_maxPredecessorTime[i] > secondMaxPredecessorTime && i != maxProcessor) {
+                    secondMaxPredecessorTime = _maxPredecessorTime[i];
                 }
             }
-            // we need to check predecessor constraints on other processors for the maxSuccessorProcessor slot
-            finalSlot = parentPS._latestSlots[maxSuccessorProcessor];
-            finalSlotTime = 0;
-            if (finalSlot != null) finalSlotTime = finalSlot.getFinish();
-            _earliestTimes[maxSuccessorProcessor] = Math.max(secondMaxSuccessorTime, finalSlotTime);
+            // we need to check predecessor constraints on other processors for the maxProcessor slot
+            _earliestTimes[maxProcessor] = Math.max(secondMaxPredecessorTime, schedule._processorFinishTimes[maxProcessor]);
             return _earliestTimes;
         }
     }
 
     /**
-     * check if a node is present within the schedule of the partial schedule.
+     * The time all data from the scheduled predecessors of a node arrives at a processor,
+     * ignoring predecessors that are on the processor itself
+     * @param schedule
      * @param node
+     * @param processor
      * @return
      */
-    protected boolean contains(PartialSolution ps, Node node){
-        for (ArrayList<ProcessorSlot> processor : ps._processors){
-            if (processor.contains(node)){
-                return true;
+    private int dataReadyTime(Schedule schedule, int node, int processor) {
+        int time = 0;
+        for (int k = _predecessorOffsets[node]; k < _predecessorOffsets[node + 1]; k++) {
+            int parent = _predecessors[k];
+            int parentProcessor = schedule._nodeProcessors[parent];
+            if (parentProcessor != PartialSolution.UNSCHEDULED && parentProcessor != processor) {
+                time = Math.max(time, schedule._startTimes[parent] + _weights[parent] + _predecessorCosts[k]);
             }
         }
-        return false;
+        return time;
     }
 
     /**
-     * Add a slot to a processor, updating latestSlots, latestSlot and idleTime as necessary
-     * @param slot
+     * check if a node is present within the schedule of the partial schedule.
+     * @param node
+     * @return
+     */
+    protected boolean contains(PartialSolution ps, Node node){
+        return ps.materialise().isScheduled(node.getIndex());
+    }
+
+    /**
+     * Add a node to a processor, updating the processor finish times, idleTime and the fingerprint as necessary
+     * @param ps
+     * @param node
+     * @param start
+     * @param processorNo
+     */
+    public void addSlot(PartialSolution ps, Node node, int start, int processorNo) {
+        addSlot(ps, node.getIndex(), start, processorNo);
+    }
+
+    /**
+     * Add a node to a processor, updating the processor finish times, idleTime and the fingerprint as necessary.
+     * The partial solution is a new child of another (see PartialSolution(PartialSolution)), the schedule of the
+     * parent is moved to it with the slot added until removeSlot hands it back.
+     * @param ps
+     * @param index node index
+     * @param start
+     * @param processorNo
      */
-    public void addSlot(PartialSolution ps, ProcessorSlot slot) {
-        ProcessorSlot latestSlot = ps._latestSlots[slot.getProcessor()];
+    public void addSlot(PartialSolution ps, int index, int start, int processorNo) {
+        Schedule schedule = ps._parent.materialise();
+        ps._parent._schedule = null;
+        ps._schedule = schedule;
+        int latestNode = schedule._latestNodes[processorNo];
+        int id = index + 1;
         int prevSlotFinishTime;
 
         // calculate when the prev slot finished
-        if (latestSlot == null) { // this is the first slot in the processor
+        if (latestNode == -1) { // this is the first slot in the processor
             prevSlotFinishTime = 0;
             ps._zeroStarts--;
-            addToSorted(ps._startingNodes, slot.getNode().getId(), ps._startingNodeIndices, slot.getProcessor());
         } else {
-            prevSlotFinishTime = latestSlot.getFinish();
-            if ((latestSlot.getNode().getTopId() < slot.getNode().getId()) && ps._priority == 0) {
+            prevSlotFinishTime = schedule._processorFinishTimes[processorNo];
+            if ((latestNode < index) && ps._priority == 0) { // indices are in topological order
                 ps._priority = 0;
             } else {
                 ps._priority = 1;
             }
         }
 
-        int processorNo = slot.getProcessor();
-        ps._processors[processorNo].add(slot);
-        ps._idleTime += slot.getStart() - prevSlotFinishTime; // add any idle time found
-        ps._bottomLevelWork = Math.max(ps._bottomLevelWork, slot.getStart() + _bottomLevelWork.get(slot.getNode().getName()));// update max bottom level work
-        ps._latestSlots[processorNo] = slot; // the newest slot becomes the latest
-        ps._nodes.add(slot.getNode().getName()); // add node to node string
+        int finish = start + _weights[index];
+        Fingerprint.addSlot(ps, id, start, processorNo);
+        ps._node = index;
+        ps._processor = (short) processorNo;
+        ps._start = start;
+        ps._previousNode = latestNode;
+        ps._idleTime += start - prevSlotFinishTime; // add any idle time found
+        ps._bottomLevelWork = Math.max(ps._bottomLevelWork, start + _bottomLevels[index]);// update max bottom level work
+        ps._nodeCount++;
+        schedule._startTimes[index] = start;
+        schedule._nodeProcessors[index] = (short) processorNo;
+        schedule._processorFinishTimes[processorNo] = finish;
+        schedule._latestNodes[processorNo] = index; // the newest slot becomes the latest
+        schedule._scheduled[index >>> 6] |= 1L << index; // mark node as scheduled
+        // the node is no longer free, but children that have all their predecessors scheduled now are
+        schedule._freeNodes[index >>> 6] &= ~(1L << index);
+        for (int k = _successorOffsets[index]; k < _successorOffsets[index + 1]; k++) {
+            int child = _successors[k];
+            if (_frozenGraph.predecessorsScheduled(child, schedule._scheduled)) {
+                schedule._freeNodes[child >>> 6] |= 1L << child;
+            }
+        }
+        int identical = _identicalSuccessors[index];
+        if (identical != -1 && _frozenGraph.predecessorsScheduled(identical, schedule._scheduled)) {
+            schedule._freeNodes[identical >>> 6] |= 1L << identical;
+        }
 
-        if (ps._latestSlot == null || ps._latestSlot.getFinish() < slot.getFinish()) {
-            ps._latestSlot = slot; // last slot across all processors is the new slot if it finishes later
+        if (ps._currentFinishTime < finish) {
+            ps._currentFinishTime = finish; // last slot across all processors is the new slot if it finishes later
         }
     }
 
+    /**
+     * Takes the slot added by addSlot back out of the schedule and hands the schedule back to the parent,
+     * so that the next child of the parent can use it. The partial solution itself keeps its slot.
+     * @param ps
+     */
+    public void removeSlot(PartialSolution ps) {
+        Schedule schedule = ps._schedule;
+        int index = ps._node;
+        int processorNo = ps._processor;
+        int previousNode = ps._previousNode;
+        Fingerprint.toggleSlot(schedule._processorHashes, index + 1, ps._start, processorNo);
+        schedule._nodeProcessors[index] = PartialSolution.UNSCHEDULED;
+        schedule._latestNodes[processorNo] = previousNode;
+        schedule._processorFinishTimes[processorNo] = previousNode == -1 ? 0 : schedule._startTimes[previousNode] + _weights[previousNode];
+        schedule._scheduled[index >>> 6] &= ~(1L << index);
+        // none of the children (or the identical successor) of the node can have been free before it was added
+        schedule._freeNodes[index >>> 6] |= 1L << index;
+        for (int k = _successorOffsets[index]; k < _successorOffsets[index + 1]; k++) {
+            int child = _successors[k];
+            schedule._freeNodes[child >>> 6] &= ~(1L << child);
+        }
+        int identical = _identicalSuccessors[index];
+        if (identical != -1) {
+            schedule._freeNodes[identical >>> 6] &= ~(1L << identical);
+        }
+        ps._schedule = null;
+        ps._parent._schedule = schedule;
+    }
+
     protected void checkAndAdd(PartialSolution ps, int processorIndex, PSPriorityQueue queue) {
+        if (ps._cost >= queue.getIncumbent().getBound()) {
+            return; // can not beat the best complete schedule found so far
+        }
         if (!equivalenceCheck(ps, processorIndex)) {
-            if (_cache.add(ps)) {
+            if (_cache == null || _cache.add(ps)) {
                 queue.add(ps);
             }
         }
     }
 
-    private PartialSolution addSlotToProcessor(PartialSolution parentPS, Node freeNode, int processor, int time) {
-        ProcessorSlot slot = new ProcessorSlot(freeNode, time, processor);
+    /**
+     * Creates the child of a partial solution that adds a free node to a processor, and adds it to the queue
+     * unless it is a duplicate
+     * @param parentPS
+     * @param freeNode
+     * @param processor
+     * @param time
+     * @param skippedNodes the nodes a fixed task order did not branch on, on the way to the child
+     * @param queue
+     */
+    private void generateChild(PartialSolution parentPS, int freeNode, int processor, int time, long[] skippedNodes,
+                               PSPriorityQueue queue) {
+        if (_cache != null && isCached(parentPS, freeNode, processor, time)) {
+            return; // the child, or one that only differs by a permutation of the processors, was already generated
+        }
         PartialSolution partialSolution = new PartialSolution(parentPS);
-        addSlot(partialSolution, slot);
-        calculateUnderestimate(partialSolution);
-        return partialSolution;
+        partialSolution._skippedNodes = skippedNodes;
+        addSlot(partialSolution, freeNode, time, processor);
+        calculateUnderestimate(partialSolution, childDataReadyTime(partialSolution._schedule, freeNode, processor));
+        checkAndAdd(partialSolution, processor, queue);
+        removeSlot(partialSolution);
     }
 
-    protected boolean equivalenceCheck(PartialSolution ps, int processorIndex) {
-        ArrayList<ProcessorSlot> toCopy = ps.getProcessors()[processorIndex];
-        ArrayList<ProcessorSlot> copy = new ArrayList<>(toCopy); // copy we use re order
+    /**
+     * Checks if the child that adds a slot to a partial solution is in the cache. The fingerprint does not
+     * depend on the order of the processors, so this also finds children that are a processor permutation of
+     * one that was generated before, and they are skipped before being created.
+     * @param parentPS the partial solution, with its schedule materialised
+     * @param index
+     * @param processor
+     * @param start
+     * @return
+     */
+    private boolean isCached(PartialSolution parentPS, int index, int processor, int start) {
+        long[] processorHashes = parentPS._schedule._processorHashes;
+        long fingerprint = Fingerprint.afterSlot(parentPS._fingerprint, processorHashes, 0, index + 1, start, processor);
+        long fingerprintCheck = Fingerprint.afterSlot(parentPS._fingerprintCheck, processorHashes, 1, index + 1, start,
+                processor);
+        // the cost of the child is not known yet, so an approximate cache only answers what it knows exactly
+        return _cache.contains(fingerprint, fingerprintCheck);
+    }
 
-        //backups
-        ArrayList<ProcessorSlot> backup = new ArrayList<>(ps.getProcessors()[processorIndex]);
-        ProcessorSlot[] latestSlotsBackup = ps._latestSlots.clone();
+    /**
+     * Checks whether moving the node that was just added to a processor in front of nodes with a higher
+     * topological id gives a schedule that is at least as good, in which case this one can be discarded.
+     * The reordered schedules are evaluated on the side, the partial solution itself is not modified.
+     * @param ps
+     * @param processorIndex
+     * @return
+     */
+    protected boolean equivalenceCheck(PartialSolution ps, int processorIndex) {
+        if (ps._skippedNodes != null && (ps._skippedNodes[ps._node >>> 6] & (1L << ps._node)) != 0) {
+            return false; // a fixed task order may have cut off the schedule with the node moved forward
+        }
+        Schedule schedule = ps._schedule;
+        int[] copy = ps.getProcessorNodes(processorIndex); // copy we use re order
+        int[] newStarts = new int[copy.length];
 
-        ArrayList<ProcessorSlot>[] processors = ps.getProcessors();
-        int addedIndex = processors[processorIndex].size() - 1;
-        Node addedNode = processors[processorIndex].get(addedIndex).getNode();
-        int maxTime = processors[processorIndex].get(addedIndex).getFinish();
+        int addedIndex = copy.length - 1;
+        int addedNode = copy[addedIndex];
+        int maxTime = schedule._processorFinishTimes[processorIndex];
         int i = addedIndex - 1; // where we check switch to
-        // empty the corresponding partialsolution processor
-        processors[processorIndex].clear();
-        ps._latestSlots[processorIndex] = null;
-        while (i >= 0 && (addedNode.getTopId() < copy.get(i).getNode().getTopId())) {
-            Collections.swap(copy, addedIndex, i);
-            for (ProcessorSlot slot : copy) {
-                int earliestTime = earliestTimeOnProcessors(ps, slot.getNode())[processorIndex];
-                ProcessorSlot newSlot = new ProcessorSlot(slot.getNode(), earliestTime, processorIndex);
-                processors[processorIndex].add(newSlot);
-                ps._latestSlots[processorIndex] = newSlot;
+        while (i >= 0 && (addedNode < copy[i])) { // indices are in topological order
+            // move the added node one slot forward, the others keep their order so no node overtakes a parent
+            int swap = copy[i + 1];
+            copy[i + 1] = copy[i];
+            copy[i] = swap;
+            int newFinishTime = 0;
+            for (int j = 0; j < copy.length; j++) {
+                newStarts[j] = Math.max(newFinishTime, dataReadyTime(schedule, copy[j], processorIndex));
+                newFinishTime = newStarts[j] + _weights[copy[j]];
             }
-            int newFinishTime = processors[processorIndex].get(processors[processorIndex].size() - 1).getFinish();
-            if (newFinishTime <= maxTime && outgoingCheck(ps, backup, processorIndex)) {
+            if (newFinishTime <= maxTime && outgoingCheck(schedule, copy, newStarts, processorIndex)) {
                 return true;
             }
             i--;
         }
-        // restore and return
-        processors[processorIndex] = backup;
-        ps._latestSlots = latestSlotsBackup;
         return false;
     }
-    // i is where m is
-
-    private boolean outgoingCheck(PartialSolution ps, ArrayList<ProcessorSlot> oldProcessor, int processorIndex) {
-        for (int i = 0; i < oldProcessor.size(); i++) {
-            ArrayList<ProcessorSlot> newProcessor = ps.getProcessors()[processorIndex];
-            ProcessorSlot newSlot = newProcessor.get(i);
-            ProcessorSlot oldSlot = oldProcessor.get(oldProcessor.indexOf(newSlot));
-            if (newSlot.getStart() > oldSlot.getStart()) {
+
+    /**
+     * Checks that the children of the nodes delayed by a reordering do not receive their data later
+     * @param schedule
+     * @param newOrder node indices of the reordered processor
+     * @param newStarts start times of the reordered processor
+     * @param processorIndex
+     * @return
+     */
+    private boolean outgoingCheck(Schedule schedule, int[] newOrder, int[] newStarts, int processorIndex) {
+        for (int i = 0; i < newOrder.length; i++) {
+            int node = newOrder[i];
+            if (newStarts[i] > schedule._startTimes[node]) {
+                int newFinish = newStarts[i] + _weights[node];
                 // for all children, check affected time
-                for (Edge e : newSlot.getNode().getOutgoing()) {
-                    Node child = e.getTo();
-                    int dataTime = newSlot.getFinish() + e.getWeight();
-                    if (ps._nodes.contains(child.getName())) { // child is already schedule
-                        ProcessorSlot childSlot = getSlot(ps, child.getId());
-                        if (!(childSlot.getProcessor() == processorIndex || childSlot.getStart() > dataTime)) {
+                for (int k = _successorOffsets[node]; k < _successorOffsets[node + 1]; k++) {
+                    int child = _successors[k];
+                    int dataTime = newFinish + _successorCosts[k];
+                    int childProcessor = schedule._nodeProcessors[child];
+                    if (childProcessor != PartialSolution.UNSCHEDULED) { // child is already schedule
+                        if (!(childProcessor == processorIndex || schedule._startTimes[child] > dataTime)) {
                             return false;
                         }
                     } else { // child is not scheduled
                         boolean atLeastOneLater = false;
                         // for all parents, check at least one comm time is later
-                        for (Edge parentEdge : child.getIncoming()) {
-                            Node parent = parentEdge.getFrom();
-                            if (ps._nodes.contains(parent.getName())) {
-                                // go through each processor and find it, compare it to dataTime
-                                ProcessorSlot parentSlot = getSlot(ps, parent.getId());
-                                if (parentSlot.getFinish() + parentEdge.getWeight() > dataTime) {
+                        for (int j = _predecessorOffsets[child]; j < _predecessorOffsets[child + 1]; j++) {
+                            int parent = _predecessors[j];
+                            if (schedule._nodeProcessors[parent] != PartialSolution.UNSCHEDULED) {
+                                // compare the (possibly reordered) finish time of the parent to dataTime
+                                if (finishTime(schedule, parent, newOrder, newStarts, processorIndex) + _predecessorCosts[j] > dataTime) {
                                     atLeastOneLater = true;
                                 }
                             }
@@ -395,33 +747,14 @@ public class PSManager {
         return true;
     }
 
-
-    private void addToSorted(int[] array, int value, int[] indicesArray, int index) {
-        for (int i = 0; i < array.length; i++) {
-            if (value < array[i]) {
-                for (int j = array.length-1; j > i; j--) {
-                    array[j] = array[j-1];
-                    indicesArray[j] = indicesArray[j-1];
+    private int finishTime(Schedule schedule, int index, int[] newOrder, int[] newStarts, int processorIndex) {
+        if (schedule._nodeProcessors[index] == processorIndex) {
+            for (int i = 0; i < newOrder.length; i++) {
+                if (newOrder[i] == index) {
+                    return newStarts[i] + _weights[index];
                 }
-                array[i] = value;
-                indicesArray[i] = index;
-                return;
-            } else if (array[i] == 0) {
-                array[i] = value;
-                indicesArray[i] = index;
-                return;
-            }
-        }
-    }
-
-    private ProcessorSlot getSlot(PartialSolution ps, int nodeId) {
-        ArrayList<ProcessorSlot>[] processors = ps.getProcessors();
-        for (int i = 0; i < processors.length; i++) {
-            for (int j = 0; j < processors[i].size(); j++) {
-                ProcessorSlot slot = processors[i].get(j);
-                if (slot.getNode().getId() == nodeId) return slot;
             }
         }
-        return null;
+        return schedule._startTimes[index] + _weights[index];
     }
 }
@@ -38,7 +38,7 @@ public class PSManagerGroup {
                         if (Scheduler._stopTimer || _override) this.cancel();
                         if (_listener != null) {
                             boolean isFinished = false;
-                            if (_psManager._currentStatPS._nodes.size() == _psManager._graph.getNodes().size()) isFinished = true;
+                            if (_psManager._currentStatPS._nodeCount == _psManager._graph.getNodes().size()) isFinished = true;
                             _listener.updateThread(isFinished, _psManager._currentStatPS, currentIndex, _psManager._nodeVisitCounts, _psManager._memory, _psManager._cost,
                                     _psManager._currentFinishTime, _psManager._statesExplored, _psManager._loaded);
                             currentIndex = (currentIndex + 1) % _cores;
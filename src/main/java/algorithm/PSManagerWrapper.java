@@ -47,12 +47,15 @@ public class PSManagerWrapper extends PSManager{
      */
     @Override
     protected void checkAndAdd(PartialSolution ps, int processorIndex, PSPriorityQueue queue) {
+        if (ps._cost >= queue.getIncumbent().getBound()) {
+            return; // can not beat the best complete schedule found so far
+        }
         if (!equivalenceCheck(ps, processorIndex)) {
-            if (_cache.add(ps)) {
+            if (_cache == null || _cache.add(ps)) {
                 // update currentFinishTime, cost, loaded and states explored
                 _currentStatPS = ps;
-                _loaded = (double)ps._nodes.size() / (_graph.getNodes().size());
-                _currentFinishTime = ps._latestSlot.getFinish();
+                _loaded = (double)ps._nodeCount / (_graph.getNodes().size());
+                _currentFinishTime = ps._currentFinishTime;
                 _cost = ps._cost;
                 _memory++;
                 // update _nodeVisitCounts
@@ -68,10 +71,8 @@ public class PSManagerWrapper extends PSManager{
      */
     @Override
     public void generateChildren(PartialSolution ps, PSPriorityQueue queue) {
-        for(int i = 0; i<ps._processors.length; i++){
-            for(int j=0; j<ps._processors[i].size(); j++){
-                _nodeVisitCounts[ps._processors[i].get(j).getNode().getId() - 1]++;
-            }
+        for (PartialSolution slot = ps; slot._node != -1; slot = slot._parent) {
+            _nodeVisitCounts[slot._node]++;
         }
         _statesExplored++;
         super.generateChildren(ps, queue);
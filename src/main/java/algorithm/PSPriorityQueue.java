@@ -1,42 +1,51 @@
 package algorithm;
 
 import graph.Graph;
-import graph.Node;
-import parallelization.PSPriorityQueueChild;
 
-import java.util.PriorityQueue;
+import java.util.Queue;
 
 /**
  * A priority queue of partial solutions, priority is calculated from their underestimates of cost
- * It wraps a Java PriorityQueue, allowing a check for a complete solution before popping off the highest
- * priority PartialSolution while initialising it with an estimated length.
+ * It wraps a BucketQueue (or a WeightedQueue once it is weighted, as weighted costs are not integers),
+ * allowing a check for a complete solution before popping off the highest priority PartialSolution.
  */
 public class PSPriorityQueue {
+    // how many partial solutions are popped between checks of the suboptimality bound in weighted mode
+    private static final int BOUND_CHECK_INTERVAL = 1024;
+
     protected Graph _graph;
-    public PriorityQueue<PartialSolution> _queue;
+    public Queue<PartialSolution> _queue;
     private int _totalNodes;
     private int _processors;
     protected PartialSolution _currentPartialSolution;
     private PSManager _psManager;
+    protected Incumbent _incumbent = new Incumbent();
+    private double _weight = 1; // weight of the heuristic part of the cost, see setWeight
+    private WeightedQueue _weightedQueue; // the queue once it is weighted, null before
+    private int _pops;
 
     public PSPriorityQueue(Graph graph, int processors) {
         _graph = graph;
         _totalNodes = _graph.getNodes().size();
         _processors = processors;
-        // TODO: capacity heuristic
-        _queue = new PriorityQueue<PartialSolution>(graph.getNodes().size() * processors * 5);
-        _psManager = new PSManager(processors, graph);
+        _queue = new BucketQueue(_totalNodes);
     }
 
     /**
      * Initialise the priority queue with the starting states
      */
     public void initialise() {
-        for (Node node : _graph.getStart()) {
-            PartialSolution ps = new PartialSolution(_processors);
-            ProcessorSlot slot = new ProcessorSlot(node, 0, 0);
-            _psManager.addSlot(ps, slot);
+        _psManager = new PSManager(_processors, _graph);
+        PartialSolution empty = new PartialSolution(_processors, _graph);
+        long[] freeNodes = empty._schedule._freeNodes; // the start nodes, apart from those after an identical one
+        for (int index = 0; index < _totalNodes; index++) {
+            if ((freeNodes[index >>> 6] & (1L << index)) == 0) {
+                continue;
+            }
+            PartialSolution ps = new PartialSolution(empty);
+            _psManager.addSlot(ps, index, 0, 0);
             _psManager.calculateUnderestimate(ps);
+            _psManager.removeSlot(ps);
             _queue.add(ps);
         }
     }
@@ -46,66 +55,135 @@ public class PSPriorityQueue {
      * @return
      */
     public boolean hasNext() {
-        if (!_queue.isEmpty()) {
+        if (_weight != 1) {
+            return hasNextWeighted();
+        }
+        if (!_queue.isEmpty() && _queue.peek()._cost < _incumbent.getBound()) {
             _currentPartialSolution = _queue.poll();
-            return _currentPartialSolution._nodes.size() != _totalNodes;
+            if (_currentPartialSolution._nodeCount == _totalNodes) {
+                _incumbent.offer(_currentPartialSolution); // lets queues sharing the incumbent stop early
+                return false;
+            }
+            return true;
         } else {
+            // nothing left can beat the incumbent, so it is optimal
+            if (_incumbent.getSolution() != null) {
+                _currentPartialSolution = _incumbent.getSolution();
+            }
             return false;
         }
 
     }
 
     /**
-     * Returns the current PartialSolution (loaded by the hasNext method)
+     * hasNext for a weighted queue, where the first partial solution does not have the lowest cost. Partial
+     * solutions that can not beat the incumbent are skipped rather than ending the search, which stops once the
+     * incumbent is within the weight of the lower bound.
      * @return
      */
-    public PartialSolution getCurrentPartialSolution() {
-        return _currentPartialSolution;
+    private boolean hasNextWeighted() {
+        while (!_queue.isEmpty()) {
+            if (++_pops % BOUND_CHECK_INTERVAL == 0 && withinBound()) {
+                break;
+            }
+            PartialSolution ps = _queue.poll();
+            if (ps._cost >= _incumbent.getBound()) {
+                continue;
+            }
+            if (ps._nodeCount == _totalNodes) {
+                _incumbent.offer(ps);
+                if (withinBound()) {
+                    break;
+                }
+            } else {
+                _currentPartialSolution = ps;
+                return true;
+            }
+        }
+        if (_incumbent.getSolution() != null) {
+            _currentPartialSolution = _incumbent.getSolution();
+        }
+        return false;
     }
 
-    public boolean contains(PartialSolution ps) {
-       return _queue.contains(ps);
+    private boolean withinBound() {
+        return _incumbent.getSolution() != null && _incumbent.getBound() <= _weight * getLowerBound();
     }
 
-    public void add(PartialSolution e) {
-        _queue.add(e);
+    /**
+     * The lowest cost in the queue, or the finish time of the incumbent if that is lower. Costs are underestimates
+     * and partial solutions that were discarded could not beat the incumbent, so no schedule finishes earlier.
+     * An unweighted queue polls the lowest cost first, a weighted one keeps track of it.
+     * @return
+     */
+    public int getLowerBound() {
+        int lowerBound = _incumbent.getBound();
+        if (!_queue.isEmpty()) {
+            lowerBound = Math.min(lowerBound, _weightedQueue != null ? _weightedQueue.lowestCost() : _queue.peek()._cost);
+        }
+        return lowerBound;
     }
 
-    public int size() {
-        return _queue.size();
+    /**
+     * Orders the queue by g + weight * h instead of by cost, where g is the finish time of the partial solution
+     * and h is its cost minus g. A weight above 1 favours partial solutions that are closer to complete, and the
+     * schedule that is found finishes no later than weight times the optimal finish time.
+     * @param weight at least 1
+     */
+    public void setWeight(double weight) {
+        _weight = weight;
+        _weightedQueue = new WeightedQueue((first, second) -> {
+            double difference = weightedCost(first) - weightedCost(second);
+            return difference == 0 ? first.compareTo(second) : (difference > 0 ? 1 : -1);
+        });
+        _weightedQueue.addAll(_queue);
+        _queue = _weightedQueue;
+    }
+
+    private double weightedCost(PartialSolution ps) {
+        return ps._currentFinishTime + _weight * (ps._cost - ps._currentFinishTime);
     }
 
     /**
-     * This method is used for parallelization and splits the parent PSPriorityQueue into smaller queues
-     * Returns an array of PSPriorityQueueChild objects
-     * @param cores
+     * Returns the current PartialSolution (loaded by the hasNext method)
      * @return
      */
-    public PSPriorityQueueChild[] splitQueue(int cores){
-        PriorityQueue<PartialSolution>[] queues = new PriorityQueue[4];
-        for (int i = 0; i < cores; i++) {
-            queues[i] = new PriorityQueue<>();
+    public PartialSolution getCurrentPartialSolution() {
+        return _currentPartialSolution;
+    }
 
-        }
+    /**
+     * Keeps at most a number of partial solutions in memory, the others are spilled to disk by cost layer
+     * (see SpillingBucketQueue). Only for a queue that is not weighted, after it is initialised.
+     * @param limit
+     */
+    public void setSpillLimit(int limit) {
+        Queue<PartialSolution> queue = new SpillingBucketQueue(_totalNodes, limit, _psManager, _processors, _incumbent);
+        queue.addAll(_queue);
+        _queue = queue;
+    }
 
-        int originalQueueSize = _queue.size();
-        int counter = 0;
-        // Splitting of queues
-        for (int i = 0; i < originalQueueSize; i++) {
-            queues[counter].add(_queue.poll());
+    public Incumbent getIncumbent() {
+        return _incumbent;
+    }
 
-            counter++;
-            if (counter == cores){
-                counter = 0;
-            }
-        }
+    /**
+     * Shares the upper bound of another search, e.g. the queue this one was split from
+     * @param incumbent
+     */
+    public void setIncumbent(Incumbent incumbent) {
+        _incumbent = incumbent;
+    }
 
-        PSPriorityQueueChild[] childQueues = new PSPriorityQueueChild[cores];
-        for (int i = 0; i < cores; i++) {
-            childQueues[i] = new PSPriorityQueueChild(_graph, _processors, i, queues[i]);
-        }
+    public boolean contains(PartialSolution ps) {
+       return _queue.contains(ps);
+    }
 
-        return childQueues;
+    public void add(PartialSolution e) {
+        _queue.add(e);
     }
-}
 
+    public int size() {
+        return _queue.size();
+    }
+}
@@ -1,105 +1,196 @@
 package algorithm;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import graph.FrozenGraph;
+import graph.Graph;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 
 /**
  *  This class creates temporary representations of the schedules being used to find the optimal schedule.
+ *
+ *  Partial solutions are persistent: each one only stores the slot it adds, a reference to the partial solution
+ *  it was created from and the aggregates the search orders and prunes on. Siblings therefore share the
+ *  schedule of their parent and a partial solution takes a constant amount of memory, however many nodes
+ *  are scheduled. The full schedule (see Schedule) is only built when it is needed, e.g. when the partial
+ *  solution is expanded, and dropped again afterwards. ProcessorSlot objects are only built on request by
+ *  getProcessors, e.g. when the final schedule is output.
  *  Author: Sam Li, Edison Rho, Nathan Hur
  */
 
 public class PartialSolution implements Comparable<PartialSolution> {
 
+    public static final short UNSCHEDULED = -1;
+
+    public PartialSolution _parent; // null for the empty schedule
+    public int _node = -1; // index of the node added to the parent, -1 for the empty schedule
+    public short _processor;
+    public int _start;
+    public int _previousNode = -1; // the latest node on _processor before _node was added, -1 if it was empty
+
     public int _idleTime; // total idle time (between slots)
     public int _cost; // overall cost heuristic
     public int _bottomLevelWork;
-    public int _currentFinishTime; // the finish time of the lowest node in the schedule
-    public ProcessorSlot _latestSlot;
-    public ProcessorSlot[] _latestSlots;
-    public ArrayList<ProcessorSlot>[] _processors;
-    public ArrayList<String> _nodes; //trialing string to show nodes in solution;
-    public int[] _startingNodes;
-    public int[] _startingNodeIndices;
-    public int _zeroStarts;
+    public int _currentFinishTime; // the finish time of the latest slot in the schedule
+    public int _nodeCount; // number of scheduled nodes
+    public int _zeroStarts; // number of empty processors
     public int _priority;
+    public long[] _skippedNodes; // bitset of the free nodes a fixed task order did not branch on, shared with the parent
+    public long _fingerprint; // processor permutation invariant hash of the schedule, see Fingerprint
+    public long _fingerprintCheck; // second independent hash lane of the fingerprint
+    public Schedule _schedule; // the materialised schedule, null unless it is in use
+    private int _numberOfProcessors;
+    private Graph _graph;
 
-    public PartialSolution(int numberOfProcessors) {
-        _processors = new ArrayList[numberOfProcessors];
-        for (int i = 0; i < numberOfProcessors; i++) {
-            _processors[i] = new ArrayList<>();
-        }
-        _nodes = new ArrayList<>();
+    /**
+     * Creates the empty schedule
+     * @param numberOfProcessors
+     * @param graph
+     */
+    public PartialSolution(int numberOfProcessors, Graph graph) {
+        _graph = graph;
+        _numberOfProcessors = numberOfProcessors;
         _priority = 0;
-        _latestSlots = new ProcessorSlot[numberOfProcessors];
-        _startingNodes = new int[numberOfProcessors];
-        _startingNodeIndices = new int[numberOfProcessors];
         _zeroStarts = numberOfProcessors;
-
+        materialise();
     }
 
     /**
-     * Copy constructor of parent
-     * @param ps
+     * Creates a child of a partial solution, its slot is added by PSManager.addSlot
+     * @param ps the parent
      */
     public PartialSolution(PartialSolution ps) {
+        _parent = ps;
+        _graph = ps._graph;
+        _numberOfProcessors = ps._numberOfProcessors;
         _idleTime = ps._idleTime;
         _cost = ps._cost;
         _bottomLevelWork = ps._bottomLevelWork;
         _currentFinishTime = ps._currentFinishTime;
-        _latestSlot = ps._latestSlot;
+        _nodeCount = ps._nodeCount;
+        _zeroStarts = ps._zeroStarts;
         _priority = ps._priority;
-        _latestSlots = new ProcessorSlot[ps._latestSlots.length];
-        for (int i = 0; i < _latestSlots.length; i++) {
-            _latestSlots[i] = ps._latestSlots[i];
-        }
-        _processors = new ArrayList[ps._processors.length];
-        for (int i = 0; i < _processors.length; i++) {
-            _processors[i] = new ArrayList<>(ps._processors[i]);
-        }
-        _nodes = new ArrayList<>(ps._nodes);
-        if (ps._zeroStarts == 0) { // starts are all full, reuse
-            _zeroStarts = 0;
-            _startingNodeIndices = ps._startingNodeIndices;
-            _startingNodes = ps._startingNodes;
-        } else {
-            _zeroStarts = ps._zeroStarts;
-            _startingNodeIndices = ps._startingNodeIndices.clone();
-            _startingNodes = ps._startingNodes.clone();
-        }
+        _skippedNodes = ps._skippedNodes;
+        _fingerprint = ps._fingerprint;
+        _fingerprintCheck = ps._fingerprintCheck;
     }
 
     public int compareTo(PartialSolution o) {
-        double costDiff = _cost - o._cost;
-        if (costDiff == 0) {
-            int nodeDiff = o._nodes.size() - _nodes.size();
+        if (_cost == o._cost) {
+            int nodeDiff = o._nodeCount - _nodeCount;
             if (nodeDiff == 0) {
                 return _priority - o._priority;
             } else {
                 return nodeDiff;
             }
         } else {
-            return costDiff > 0 ? 1 : -1;
+            return _cost > o._cost ? 1 : -1;
+        }
+    }
+
+    public Graph getGraph() {
+        return _graph;
+    }
+
+    public int getNumberOfProcessors() {
+        return _numberOfProcessors;
+    }
+
+    /**
+     * Builds the schedule from the slots of this partial solution and its parents, unless it is already built
+     * @return the materialised schedule
+     */
+    public Schedule materialise() {
+        if (_schedule == null) {
+            FrozenGraph frozenGraph = _graph.getFrozenGraph();
+            Schedule schedule = new Schedule(frozenGraph._nodeCount, _numberOfProcessors);
+            for (PartialSolution ps = this; ps._node != -1; ps = ps._parent) {
+                int index = ps._node;
+                schedule._startTimes[index] = ps._start;
+                schedule._nodeProcessors[index] = ps._processor;
+                schedule._scheduled[index >>> 6] |= 1L << index;
+                // slots are added in order, so the first one found on a processor is its latest
+                if (schedule._latestNodes[ps._processor] == -1) {
+                    schedule._latestNodes[ps._processor] = index;
+                    schedule._processorFinishTimes[ps._processor] = ps._start + frozenGraph._weights[index];
+                }
+                Fingerprint.toggleSlot(schedule._processorHashes, index + 1, ps._start, ps._processor);
+            }
+            schedule.updateFreeNodes(frozenGraph);
+            _schedule = schedule;
+        }
+        return _schedule;
+    }
+
+    /**
+     * Drops the materialised schedule, it is rebuilt by materialise if needed again
+     */
+    public void release() {
+        _schedule = null;
+    }
+
+    /**
+     * Indices of the nodes on a processor, ordered by start time
+     * @param processor
+     * @return
+     */
+    public int[] getProcessorNodes(int processor) {
+        int count = 0;
+        for (PartialSolution ps = this; ps._node != -1; ps = ps._parent) {
+            if (ps._processor == processor) count++;
+        }
+        int[] nodes = new int[count];
+        for (PartialSolution ps = this; ps._node != -1; ps = ps._parent) {
+            if (ps._processor == processor) {
+                nodes[--count] = ps._node;
+            }
         }
+        return nodes;
     }
 
+    /**
+     * Builds the schedule as ProcessorSlot lists, for output and visualisation
+     * @return a list of slots ordered by start time for every processor
+     */
     public ArrayList<ProcessorSlot>[] getProcessors() {
-        return _processors;
+        ArrayList<ProcessorSlot>[] processors = new ArrayList[_numberOfProcessors];
+        for (int i = 0; i < processors.length; i++) {
+            processors[i] = new ArrayList<>();
+        }
+        for (PartialSolution ps = this; ps._node != -1; ps = ps._parent) {
+            processors[ps._processor].add(new ProcessorSlot(_graph.getNode(ps._node), ps._start, ps._processor));
+        }
+        for (ArrayList<ProcessorSlot> processor : processors) {
+            Collections.reverse(processor);
+        }
+        return processors;
+    }
+
+    /**
+     * Builds the slot that finishes last in the schedule
+     * @return null if the schedule is empty
+     */
+    public ProcessorSlot getLatestSlot() {
+        ProcessorSlot latestSlot = null;
+        for (PartialSolution ps = this; ps._node != -1; ps = ps._parent) {
+            ProcessorSlot slot = new ProcessorSlot(_graph.getNode(ps._node), ps._start, ps._processor);
+            if (latestSlot == null || latestSlot.getFinish() < slot.getFinish()) {
+                latestSlot = slot;
+            }
+        }
+        return latestSlot;
     }
 
-    @Override // TODO: remove when working
     /**
      * glorified logging
      */
+    @Override
     public String toString() {
         String s = "\n===========================\n";
-        for (int i = 0; i < _processors.length; i++) {
+        ArrayList<ProcessorSlot>[] processors = getProcessors();
+        for (int i = 0; i < processors.length; i++) {
             s += "\nPROCESSOR " + (i+1) + "\n";
-            for (ProcessorSlot slot : _processors[i]) {
+            for (ProcessorSlot slot : processors[i]) {
                 s += "[Time: " + slot.getStart() + " -> " + slot.getFinish() + "] Task: " + slot.getNode().getName() +  "\n";
             }
         }
@@ -108,5 +199,3 @@ public class PartialSolution implements Comparable<PartialSolution> {
         return s;
     }
 }
-
-
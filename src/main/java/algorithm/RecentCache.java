@@ -0,0 +1,104 @@
+package algorithm;
+
+/**
+ * A small table of the fingerprints one thread saw most recently, in front of the Cache shared by all threads.
+ * Many duplicates are siblings or cousins generated by the same thread shortly before, so they are recognised
+ * here without touching the shared Cache and the cache lines other threads write to.
+ *
+ * Every fingerprint in the table is also in the shared Cache, so a hit is always a duplicate. The table is
+ * direct mapped and a newer fingerprint overwrites an older one, so its size does not grow with the search.
+ * It must only be used by one thread.
+ *
+ * Every child is looked up once before it is created, so only contains counts lookups and hits; the add that
+ * follows for a new child is not counted again.
+ */
+public class RecentCache extends Cache {
+    private static final int RECENT_BITS = 12;
+
+    private Cache _shared;
+    private long[] _recent = new long[2 << RECENT_BITS]; // pairs of (fingerprint, fingerprintCheck)
+    private long _lookups;
+    private long _hits;
+
+    /**
+     * @param processorCount
+     * @param shared the Cache shared by all threads
+     */
+    public RecentCache(int processorCount, Cache shared) {
+        super(processorCount, 0);
+        _shared = shared;
+    }
+
+    @Override
+    public boolean add(long fingerprint, long fingerprintCheck) {
+        return add(fingerprint, fingerprintCheck, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean add(long fingerprint, long fingerprintCheck, int cost) {
+        if (isRecent(fingerprint, fingerprintCheck)) {
+            return false;
+        }
+        boolean added = _shared.add(fingerprint, fingerprintCheck, cost);
+        remember(fingerprint, fingerprintCheck);
+        return added;
+    }
+
+    @Override
+    public boolean contains(long fingerprint, long fingerprintCheck) {
+        return contains(fingerprint, fingerprintCheck, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean contains(long fingerprint, long fingerprintCheck, int cost) {
+        _lookups++;
+        if (isRecent(fingerprint, fingerprintCheck)) {
+            _hits++;
+            return true;
+        }
+        if (_shared.contains(fingerprint, fingerprintCheck, cost)) {
+            remember(fingerprint, fingerprintCheck);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return _shared.size();
+    }
+
+    @Override
+    public long[] entries() {
+        return _shared.entries();
+    }
+
+    /**
+     * @return number of lookups, see getHits
+     */
+    public long getLookups() {
+        return _lookups;
+    }
+
+    /**
+     * @return number of lookups that were answered without the shared Cache
+     */
+    public long getHits() {
+        return _hits;
+    }
+
+    private boolean isRecent(long fingerprint, long fingerprintCheck) {
+        int index = index(fingerprint);
+        return _recent[index] == key(fingerprint) && _recent[index + 1] == fingerprintCheck;
+    }
+
+    private void remember(long fingerprint, long fingerprintCheck) {
+        int index = index(fingerprint);
+        _recent[index] = key(fingerprint);
+        _recent[index + 1] = fingerprintCheck;
+    }
+
+    private static int index(long fingerprint) {
+        return ((int) fingerprint & ((1 << RECENT_BITS) - 1)) * 2;
+    }
+}
@@ -0,0 +1,78 @@
+package algorithm;
+
+import graph.FrozenGraph;
+
+/**
+ * The materialised schedule of a PartialSolution, kept in primitive arrays indexed by node index
+ * (see Node.getIndex): the start time and processor of every node, plus the finish time and latest node of
+ * every processor. Membership is also kept as a bitset, next to the set of free nodes.
+ *
+ * Partial solutions only store the slot they add to their parent, so a schedule is either rebuilt from the
+ * chain of parents (PartialSolution.materialise) or handed down from the parent while a child is being
+ * evaluated (PSManager.addSlot and PSManager.removeSlot).
+ */
+public class Schedule {
+    public int[] _startTimes; // start time of each node
+    public short[] _nodeProcessors; // processor of each node, UNSCHEDULED if not in the schedule
+    public int[] _processorFinishTimes; // finish time of the latest slot on each processor
+    public int[] _latestNodes; // index of the latest node on each processor, -1 if the processor is empty
+    public long[] _scheduled; // bitset of the scheduled node indices
+    public long[] _freeNodes; // bitset of the unscheduled nodes whose predecessors are all scheduled
+    public long[] _processorHashes; // running hash lanes of each processor, see Fingerprint
+
+    /**
+     * Creates an empty schedule, the free nodes have to be filled in with updateFreeNodes
+     * @param nodeCount
+     * @param numberOfProcessors
+     */
+    public Schedule(int nodeCount, int numberOfProcessors) {
+        _startTimes = new int[nodeCount];
+        _nodeProcessors = new short[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            _nodeProcessors[i] = PartialSolution.UNSCHEDULED;
+        }
+        _processorFinishTimes = new int[numberOfProcessors];
+        _latestNodes = new int[numberOfProcessors];
+        for (int i = 0; i < numberOfProcessors; i++) {
+            _latestNodes[i] = -1;
+        }
+        _scheduled = new long[(nodeCount + 63) >>> 6];
+        _freeNodes = new long[_scheduled.length];
+        _processorHashes = new long[numberOfProcessors * Fingerprint.LANES];
+    }
+
+    public boolean isScheduled(int index) {
+        return (_scheduled[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Recalculates the free node set from the scheduled nodes. Apart from the sources of the graph, only a
+     * successor or the identical successor of a scheduled node can be free, so only those are checked rather
+     * than every node.
+     * @param frozenGraph
+     */
+    public void updateFreeNodes(FrozenGraph frozenGraph) {
+        for (int i = 0; i < _freeNodes.length; i++) {
+            _freeNodes[i] = frozenGraph._sources[i] & ~_scheduled[i];
+        }
+        for (int i = 0; i < _scheduled.length; i++) {
+            for (long word = _scheduled[i]; word != 0; word &= word - 1) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(word);
+                for (int k = frozenGraph._successorOffsets[index]; k < frozenGraph._successorOffsets[index + 1]; k++) {
+                    updateFreeNode(frozenGraph, frozenGraph._successors[k]);
+                }
+                if (frozenGraph._identicalSuccessors[index] != -1) {
+                    updateFreeNode(frozenGraph, frozenGraph._identicalSuccessors[index]);
+                }
+            }
+        }
+    }
+
+    private void updateFreeNode(FrozenGraph frozenGraph, int index) {
+        long bit = 1L << index;
+        if ((_scheduled[index >>> 6] & bit) == 0 && (_freeNodes[index >>> 6] & bit) == 0
+                && frozenGraph.predecessorsScheduled(index, _scheduled)) {
+            _freeNodes[index >>> 6] |= bit;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * A BucketQueue that keeps at most a given number of partial solutions in memory (see the -s option of the
+ * Scheduler). When it holds more, whole cost layers are spilled to run files on disk, starting with the
+ * highest cost, until half the limit is left. A layer is read back once nothing in memory has a lower cost,
+ * and dropped without being read once its cost can not beat the incumbent.
+ *
+ * A run stores every partial solution of the layer as its cost, its slots in the order they were added and the
+ * nodes a fixed task order skipped, sorted by the slots. When a layer is read back its runs are merged, so equal
+ * partial solutions that were spilled in different runs are only rebuilt once, and consecutive partial solutions
+ * share the parents of their common prefix, as they did before being spilled. Every value is written as an int,
+ * so any number of nodes and processors round trips.
+ */
+public class SpillingBucketQueue extends BucketQueue {
+    // slots are compared as (node, processor, start) triples
+    private static final Comparator<int[]> SLOT_ORDER = (first, second) -> {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            if (first[i] != second[i]) {
+                return first[i] < second[i] ? -1 : 1;
+            }
+        }
+        return first.length - second.length;
+    };
+
+    private int _limit;
+    private PSManager _psManager;
+    private int _processors;
+    private Incumbent _incumbent;
+    private TreeMap<Integer, List<File>> _runs = new TreeMap<>(); // run files of each spilled cost
+    private TreeMap<Integer, Integer> _layerSizes = new TreeMap<>(); // partial solutions of each spilled cost
+    private int _spilled; // partial solutions in the run files
+    private File _directory;
+
+    /**
+     * @param totalNodes
+     * @param limit number of partial solutions kept in memory
+     * @param psManager used to rebuild the partial solutions that are read back
+     * @param processors
+     * @param incumbent spilled layers whose cost is not below its bound are dropped
+     */
+    public SpillingBucketQueue(int totalNodes, int limit, PSManager psManager, int processors, Incumbent incumbent) {
+        super(totalNodes);
+        _limit = limit;
+        _psManager = psManager;
+        _processors = processors;
+        _incumbent = incumbent;
+    }
+
+    @Override
+    public boolean offer(PartialSolution ps) {
+        super.offer(ps);
+        if (super.size() > _limit) {
+            spill();
+        }
+        return true;
+    }
+
+    @Override
+    public PartialSolution poll() {
+        readBack();
+        return super.poll();
+    }
+
+    @Override
+    public PartialSolution peek() {
+        readBack();
+        return super.peek();
+    }
+
+    @Override
+    public int size() {
+        return super.size() + _spilled;
+    }
+
+    /**
+     * Writes the highest cost layers to disk until half the limit is left in memory. The lowest layer is
+     * always kept, it is the one being expanded.
+     */
+    private void spill() {
+        try {
+            if (_directory == null) {
+                _directory = Files.createTempDirectory("open-list").toFile();
+                _directory.deleteOnExit();
+            }
+            while (super.size() > _limit / 2 && highestCost() > lowestCost()) {
+                int cost = highestCost();
+                List<int[]> slots = new ArrayList<>();
+                List<long[]> skippedNodes = new ArrayList<>();
+                for (PartialSolution ps : removeLayer(cost)) {
+                    slots.add(slots(ps));
+                    skippedNodes.add(ps._skippedNodes);
+                }
+                Integer[] order = new Integer[slots.size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (first, second) -> SLOT_ORDER.compare(slots.get(first), slots.get(second)));
+
+                File run = File.createTempFile("run", ".bin", _directory);
+                run.deleteOnExit();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+                    for (int i : order) {
+                        write(out, slots.get(i), skippedNodes.get(i));
+                    }
+                }
+                _runs.computeIfAbsent(cost, key -> new ArrayList<>()).add(run);
+                _layerSizes.merge(cost, order.length, Integer::sum);
+                _spilled += order.length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drops the spilled layers that can not beat the incumbent, then reads the lowest one back if nothing in
+     * memory has a lower cost
+     */
+    private void readBack() {
+        while (!_runs.isEmpty() && _runs.lastKey() >= _incumbent.getBound()) {
+            int cost = _runs.lastKey();
+            for (File run : _runs.remove(cost)) {
+                run.delete();
+            }
+            _spilled -= _layerSizes.remove(cost);
+        }
+        if (_runs.isEmpty() || (super.size() > 0 && lowestCost() < _runs.firstKey())) {
+            return;
+        }
+        int cost = _runs.firstKey();
+        List<File> runs = _runs.remove(cost);
+        _layerSizes.remove(cost);
+        // k-way merge of the runs, ordered by the slots of their current partial solution
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(
+                (first, second) -> SLOT_ORDER.compare(first._slots, second._slots));
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            PartialSolution[] chain = new PartialSolution[1];
+            chain[0] = new PartialSolution(_processors, _psManager._graph);
+            int[] previous = new int[0];
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                _spilled--;
+                if (SLOT_ORDER.compare(previous, reader._slots) != 0) { // duplicates are skipped
+                    chain = rebuild(chain, previous, reader._slots);
+                    PartialSolution ps = chain[chain.length - 1];
+                    ps._cost = cost;
+                    ps._skippedNodes = reader._skippedNodes;
+                    previous = reader._slots;
+                    super.offer(ps);
+                }
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            // hand the schedule back to the root and drop it, the partial solutions materialise when expanded
+            for (int depth = chain.length - 1; depth > 0; depth--) {
+                _psManager.removeSlot(chain[depth]);
+            }
+            chain[0].release();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (File run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Moves the chain of the previous partial solution to the one with the given slots, keeping the common prefix
+     * @param chain partial solutions by depth, the last one holds the schedule
+     * @param previous slots of the last partial solution of the chain
+     * @param slots
+     * @return the chain of the partial solution with the given slots
+     */
+    private PartialSolution[] rebuild(PartialSolution[] chain, int[] previous, int[] slots) {
+        int common = 0;
+        while (common < previous.length && common < slots.length && previous[common] == slots[common]
+                && previous[common + 1] == slots[common + 1] && previous[common + 2] == slots[common + 2]) {
+            common += 3;
+        }
+        for (int depth = chain.length - 1; depth > common / 3; depth--) {
+            _psManager.removeSlot(chain[depth]);
+        }
+        PartialSolution[] newChain = Arrays.copyOf(chain, slots.length / 3 + 1);
+        for (int i = common; i < slots.length; i += 3) {
+            PartialSolution child = new PartialSolution(newChain[i / 3]);
+            _psManager.addSlot(child, slots[i], slots[i + 2], slots[i + 1]);
+            newChain[i / 3 + 1] = child;
+        }
+        return newChain;
+    }
+
+    /**
+     * The slots of a partial solution in the order they were added, as (node, processor, start) triples
+     * @param ps
+     * @return
+     */
+    private static int[] slots(PartialSolution ps) {
+        int[] slots = new int[ps._nodeCount * 3];
+        int i = slots.length;
+        for (PartialSolution slot = ps; slot._node != -1; slot = slot._parent) {
+            slots[--i] = slot._start;
+            slots[--i] = slot._processor;
+            slots[--i] = slot._node;
+        }
+        return slots;
+    }
+
+    private static void write(DataOutputStream out, int[] slots, long[] skippedNodes) throws IOException {
+        out.writeInt(slots.length / 3);
+        for (int i = 0; i < slots.length; i += 3) {
+            out.writeInt(slots[i]);
+            out.writeInt(slots[i + 1]);
+            out.writeInt(slots[i + 2]);
+        }
+        out.writeInt(skippedNodes == null ? -1 : skippedNodes.length);
+        if (skippedNodes != null) {
+            for (long word : skippedNodes) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads the partial solutions of a run one at a time
+     */
+    private static class RunReader {
+        private DataInputStream _in;
+        private int[] _slots;
+        private long[] _skippedNodes;
+
+        RunReader(File run) throws IOException {
+            _in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+        }
+
+        /**
+         * @return false at the end of the run
+         */
+        boolean next() throws IOException {
+            int nodeCount;
+            try {
+                nodeCount = _in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            _slots = new int[nodeCount * 3];
+            for (int i = 0; i < _slots.length; i += 3) {
+                _slots[i] = _in.readInt();
+                _slots[i + 1] = _in.readInt();
+                _slots[i + 2] = _in.readInt();
+            }
+            int words = _in.readInt();
+            _skippedNodes = null;
+            if (words >= 0) {
+                _skippedNodes = new long[words];
+                for (int i = 0; i < words; i++) {
+                    _skippedNodes[i] = _in.readLong();
+                }
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            _in.close();
+        }
+    }
+}
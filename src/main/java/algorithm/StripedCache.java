@@ -0,0 +1,70 @@
+package algorithm;
+
+/**
+ * A Cache for partial solutions that are generated by several threads at once. Fingerprints are split over a
+ * number of independent open addressing tables by their highest bits, each with its own lock, so threads only
+ * wait for each other when they touch the same stripe and there is no lock around the whole closed set.
+ * The tables are indexed by the lowest bits, so a stripe still spreads its fingerprints evenly.
+ */
+public class StripedCache extends Cache {
+    private Cache[] _stripes;
+    private int _shift;
+
+    /**
+     * @param processorCount
+     * @param stripes number of tables, a power of two
+     */
+    public StripedCache(int processorCount, int stripes) {
+        super(processorCount, 0);
+        _stripes = new Cache[stripes];
+        for (int i = 0; i < stripes; i++) {
+            _stripes[i] = new Cache(processorCount);
+        }
+        _shift = 64 - Integer.numberOfTrailingZeros(stripes);
+    }
+
+    @Override
+    public boolean add(long fingerprint, long fingerprintCheck) {
+        return stripe(fingerprint).add(fingerprint, fingerprintCheck);
+    }
+
+    @Override
+    public boolean contains(long fingerprint, long fingerprintCheck) {
+        return stripe(fingerprint).contains(fingerprint, fingerprintCheck);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Cache stripe : _stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long[] entries() {
+        long[][] stripeEntries = new long[_stripes.length][];
+        int length = 0;
+        for (int i = 0; i < _stripes.length; i++) {
+            stripeEntries[i] = _stripes[i].entries();
+            length += stripeEntries[i].length;
+        }
+        long[] entries = new long[length];
+        int count = 0;
+        for (long[] stripe : stripeEntries) {
+            System.arraycopy(stripe, 0, entries, count, stripe.length);
+            count += stripe.length;
+        }
+        return entries;
+    }
+
+    @Override
+    public Cache forThreads(int threads) {
+        return this;
+    }
+
+    private Cache stripe(long fingerprint) {
+        return _stripes[(int) (fingerprint >>> _shift) & (_stripes.length - 1)];
+    }
+}
@@ -0,0 +1,98 @@
+package algorithm;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Open list of weighted A*: a heap ordered by the weighted cost, next to a count of the partial solutions of every
+ * cost like the buckets of a BucketQueue. The lowest cost in the queue, which is the lower bound weighted A* checks
+ * its incumbent against, is then found by skipping empty counts instead of scanning the heap.
+ */
+public class WeightedQueue extends AbstractQueue<PartialSolution> {
+    private PriorityQueue<PartialSolution> _heap;
+    private int[] _counts = new int[16]; // partial solutions of each cost, indexed by cost minus _base
+    private int _base = -1; // cost of the first count, set by the first partial solution added
+    private int _minCost; // no count below this index is above zero
+
+    /**
+     * @param comparator the order partial solutions are polled in
+     */
+    public WeightedQueue(Comparator<PartialSolution> comparator) {
+        _heap = new PriorityQueue<>(comparator);
+    }
+
+    @Override
+    public boolean offer(PartialSolution ps) {
+        if (_base == -1) {
+            _base = ps._cost;
+        } else if (ps._cost < _base) {
+            int shift = _base - ps._cost;
+            int[] counts = new int[_counts.length + shift];
+            System.arraycopy(_counts, 0, counts, shift, _counts.length);
+            _counts = counts;
+            _minCost += shift;
+            _base = ps._cost;
+        }
+        int cost = ps._cost - _base;
+        if (cost >= _counts.length) {
+            _counts = Arrays.copyOf(_counts, Math.max(cost + 1, _counts.length * 2));
+        }
+        _counts[cost]++;
+        _minCost = Math.min(_minCost, cost);
+        return _heap.offer(ps);
+    }
+
+    @Override
+    public PartialSolution poll() {
+        PartialSolution ps = _heap.poll();
+        if (ps != null) {
+            _counts[ps._cost - _base]--;
+        }
+        return ps;
+    }
+
+    @Override
+    public PartialSolution peek() {
+        return _heap.peek();
+    }
+
+    @Override
+    public int size() {
+        return _heap.size();
+    }
+
+    /**
+     * Iterates the heap in no particular order, partial solutions can not be removed through it
+     */
+    @Override
+    public Iterator<PartialSolution> iterator() {
+        Iterator<PartialSolution> iterator = _heap.iterator();
+        return new Iterator<PartialSolution>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public PartialSolution next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * @return the lowest cost in the queue, -1 if it is empty
+     */
+    public int lowestCost() {
+        if (_heap.isEmpty()) {
+            return -1;
+        }
+        while (_counts[_minCost] == 0) {
+            _minCost++;
+        }
+        return _minCost + _base;
+    }
+}
@@ -8,8 +8,8 @@ import graph.Node;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Stack;
 
 /**
@@ -30,7 +30,6 @@ public class Parser {
     public static Graph parseDotFile (File file) {
         idCounter = 1;
         HashMap<String, Node> nodeMap = new HashMap<String, Node>();
-        HashMap<Integer, ArrayList<Node>> equalCostNodes = new HashMap<>();
         HashMap startNodes;
         Graph graph;
         int totalMinimumWork = 0;
@@ -61,11 +60,6 @@ public class Parser {
                     if (!splitLine[0].contains("->")) { // add single vertex to graph and hashmap, as well as weight to min work
                         weight = getValue(right);
                         Node newVertex = new Node(idCounter++, left, weight);
-                        // add node to hashmap to detect duplicates
-                        if (!equalCostNodes.containsKey(weight)) {
-                            equalCostNodes.put(weight, new ArrayList<>());
-                        }
-                        equalCostNodes.get(weight).add(newVertex);
                         totalMinimumWork += weight;
                         nodeMap.put(left, newVertex);
                     } else { // add arc to queue for processing at the end
@@ -79,6 +73,7 @@ public class Parser {
 
         // clone nodeMap to find possible starting nodes
         startNodes = new HashMap<String, Node>(nodeMap);
+        ArrayList<Edge> edges = new ArrayList<>();
         // process arcQueue
         for (String[] string : arcQueue) {
             String[] arcString = string[0].split("->");
@@ -87,85 +82,78 @@ public class Parser {
             Node fromNode = nodeMap.get(from);
             Node toNode = nodeMap.get(to);
             int weight = getValue(string[1]);
-            graph.addEdge(new Edge(fromNode, toNode, weight));
+            edges.add(new Edge(fromNode, toNode, weight));
             fromNode.addOutgoingEdge(toNode, weight);
             toNode.addIncomingEdge(fromNode, weight);
             startNodes.remove(nodeMap.get(to).getName());
         }
 
-        // set some useful fields in graph Object
-        graph.setNodes(new ArrayList<Node>(nodeMap.values()));
-        graph.setStart(new ArrayList<Node>(startNodes.values()));
-        graph.setTotalMinimumWork(totalMinimumWork);
-
         // topologically sort for setting id in order
         idCounter = 1;
-        List<Node> nodes = graph.getNodes();
         Stack<String> stack = new Stack<>();
-        boolean[] visited = new boolean[nodes.size() + 1];
+        boolean[] visited = new boolean[nodeMap.size() + 1];
 
-        for (Node node : nodes) {
+        for (Node node : nodeMap.values()) {
             if (visited[node.getId()] == false) {
                 topologicalSort(node, visited, stack);
             }
         }
 
+        // renumber the nodes in topological order, so ids (and indices) follow the dependencies
+        ArrayList<Node> nodes = new ArrayList<>();
         while (stack.empty() == false) {
-            String name = stack.pop();
-            nodeMap.get(name).setTopId(idCounter);
+            Node node = nodeMap.get(stack.pop());
+            node.setTopId(idCounter);
+            node.setId(idCounter);
+            nodes.add(node);
             idCounter++;
         }
 
-        // calculate bottom level work before handling node equivalence
-        graph.bottomLevelCalculator();
-        for (ArrayList<Node> list : equalCostNodes.values()) {
-            for (int i = 0; i < list.size() - 1; i++) {
-                for (int j = i + 1; j < list.size(); j++) {
-                    Node first = list.get(i);
-                    Node other = list.get(j);
-                    if (first.getIncoming().size() == other.getIncoming().size() && first.getOutgoing().size() == other.getOutgoing().size()) {
-                        boolean equal = true;
-                        for (Edge e : first.getIncoming()) {
-                            boolean found = false;
-                            for (Edge e2 : other.getIncoming()) {
-                                if (e.getFrom().equals(e2.getFrom()) && e.getWeight() == e2.getWeight()) found = true;
-                            }
-                            if (!found) {
-                                equal = false;
-                                break;
-                            }
-                        }
-                        if (equal) {
-                            for (Edge e : first.getOutgoing()) {
-                                boolean found = false;
-                                for (Edge e2 : other.getOutgoing()) {
-                                    if (e.getTo().equals(e2.getTo()) && e.getWeight() == e2.getWeight()) found = true;
-                                }
-                                if (!found) {
-                                    equal = false;
-                                    break;
-                                }
-                            }
-                            if (equal) { // equal, add edge between them so they don't appear together
-                                if (first.getTopId() < other.getTopId()) {
-                                    graph.addEdge(new Edge(first, other, 0));
-                                    first.addOutgoingEdge(other, 0);
-                                    other.addIncomingEdge(first, 0);
-                                } else {
+        // set some useful fields in graph Object, edges are added once the ids are final
+        graph.setNodes(nodes);
+        graph.setStart(new ArrayList<Node>(startNodes.values()));
+        graph.setTotalMinimumWork(totalMinimumWork);
+        for (Edge edge : edges) {
+            graph.addEdge(edge);
+        }
 
-                                    graph.addEdge(new Edge(other, first, 0));
-                                    other.addOutgoingEdge(first, 0);
-                                    first.addIncomingEdge(other, 0);
-                                }
-                            }
-                        }
-                    }
-                }
+        // calculate bottom level work
+        graph.bottomLevelCalculator();
+        // identical nodes are interchangeable, so each one is ordered after the previous node with the same signature
+        HashMap<String, Node> lastIdentical = new HashMap<>();
+        for (Node node : nodes) {
+            Node previous = lastIdentical.put(signature(node), node);
+            if (previous != null) {
+                node.setIdenticalPredecessor(previous);
             }
         }
         return graph;
     }
 
+    /**
+     * Identifies a node by its weight and its sorted incoming and outgoing edges, so nodes with the same
+     * signature have the same weight, parents, children and communication costs.
+     * @param node
+     * @return
+     */
+    private static String signature(Node node) {
+        StringBuilder signature = new StringBuilder().append(node.getWeight());
+        for (ArrayList<Edge> edges : Arrays.asList(node.getIncoming(), node.getOutgoing())) {
+            long[] keys = new long[edges.size()];
+            for (int i = 0; i < keys.length; i++) {
+                Edge e = edges.get(i);
+                Node other = e.getFrom() == node ? e.getTo() : e.getFrom();
+                keys[i] = ((long) other.getId() << 32) | e.getWeight();
+            }
+            Arrays.sort(keys);
+            signature.append('|');
+            for (long key : keys) {
+                signature.append(key).append(',');
+            }
+        }
+        return signature.toString();
+    }
+
     private static void topologicalSort(Node node, boolean visited[], Stack stack) {
         visited[node.getId()] = true;
         ArrayList<Edge> outgoing = node.getOutgoing();
@@ -212,8 +200,15 @@ public class Parser {
                     outputArray.add(line);
                 }
             }
-            //for each line, if it is a task, then check the PartialSolution to obtain the process number and ProcessSlots
-            //to find the start time for that task.
+            //map every task name to its slot once, instead of searching the processors for each task.
+            HashMap<String, ProcessorSlot> slots = new HashMap<String, ProcessorSlot>();
+            for (ArrayList<ProcessorSlot> processor: finalSolution.getProcessors()){
+                for (ProcessorSlot processorSlot: processor){
+                    slots.put(processorSlot.getNode().getName(), processorSlot);
+                }
+            }
+            //for each line, if it is a task, then look up its slot to obtain the process number
+            //and the start time for that task.
             //if it is an edge, then output it directly without any modifications.
             for (String outputLine : outputArray){
                 String[] splitLine = outputLine.split("\\[");
@@ -223,15 +218,12 @@ public class Parser {
 
                 if (!splitLine[0].contains("->")) {
                     weight = getValue(right);
-                    for (ArrayList<ProcessorSlot> processor: finalSolution.getProcessors()){
-                        for (ProcessorSlot processorSlot: processor){
-                            if (processorSlot.getNode().getName().equals(taskName)){
-                                String taskOutput = "\t"+taskName+"\t\t\t\t"+"[ Weight="+weight
-                                        +",Start="+processorSlot.getStart()
-                                        +",Processor="+(processorSlot.getProcessor()+1)+"];\n";
-                                output.append(taskOutput);
-                            }
-                        }
+                    ProcessorSlot processorSlot = slots.get(taskName);
+                    if (processorSlot != null){
+                        String taskOutput = "\t"+taskName+"\t\t\t\t"+"[ Weight="+weight
+                                +",Start="+processorSlot.getStart()
+                                +",Processor="+(processorSlot.getProcessor()+1)+"];\n";
+                        output.append(taskOutput);
                     }
 
                 } else { // add arc to queue for processing at the end
@@ -40,15 +40,6 @@ public class GraphDrawer {
 
         List<Node> nodes = _graph.getNodes();
         List<Edge> edges = _graph.getEdges();
-        List<Edge> edgesToRemove = new ArrayList<>();
-
-        for (Edge deletededges: edges) {
-            if(deletededges.getWeight() == 0) {
-                edgesToRemove.add(deletededges);
-            }
-        }
-
-        edges.removeAll(edgesToRemove);
 
         List<Node> source = _graph.getStart();
         double graphPaneX = _graphPane.getPrefWidth();
@@ -178,7 +169,7 @@ public class GraphDrawer {
             level = 0;
 
             // If there are incoming edges on the node, this is for not source
-            if(!currentNode.getIncoming().isEmpty() && !(currentNode.getIncoming().size() == 1 && currentNode.getIncoming().get(0).getWeight() == 0)) {
+            if(!currentNode.getIncoming().isEmpty()) {
                 for(Edge predecessors: currentNode.getIncoming()) {
                     currentLevel = levelsMap.get(predecessors.getFrom().getId());
                     if(currentLevel > level) {
@@ -51,7 +51,7 @@ public class ScheduleGraphGenerator {
         ABSOLUTE_WIDTH = DESIRED_WIDTH/_numProcessors;
         _unitHeight = 3;
 
-        _ps = new PartialSolution(_numProcessors);
+        _ps = new PartialSolution(_numProcessors, Scheduler._graph);
         _actualRows = 20;
         _gridHeight = 12;
 
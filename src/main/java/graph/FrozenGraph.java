@@ -0,0 +1,95 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, array backed view of a Graph for the search.
+ * Everything is indexed by Node.getIndex(), so the scheduler never has to hash node names, look up
+ * edges in maps or box integers. The parser numbers nodes in topological order, so a node's index
+ * is also its topological position and every predecessor has a lower index.
+ *
+ * Adjacency is stored in compressed sparse row form: the predecessors of node i are
+ * _predecessors[_predecessorOffsets[i]] up to (excluding) _predecessors[_predecessorOffsets[i + 1]],
+ * with the communication cost of each edge at the same position in _predecessorCosts. Successors are
+ * stored the same way. It is built once the graph has been fully parsed, see Graph.getFrozenGraph.
+ *
+ * Identical nodes are chained so they are only scheduled in one order (see Node.getIdenticalPredecessor).
+ * The chain is part of the predecessor masks, so it decides when a node becomes free, but it carries no data.
+ */
+public final class FrozenGraph {
+    public final int _nodeCount;
+    public final int[] _weights;
+    public final int[] _bottomLevels;
+    public final long[][] _predecessorMasks; // bitset of the predecessors of each node
+    public final int[] _identicalSuccessors; // the identical node to be scheduled after each node, -1 if none
+    public final long[] _sources; // bitset of the nodes whose predecessor mask is empty, free in the empty schedule
+
+    public final int[] _predecessorOffsets;
+    public final int[] _predecessors;
+    public final int[] _predecessorCosts;
+    public final int[] _successorOffsets;
+    public final int[] _successors;
+    public final int[] _successorCosts;
+
+    FrozenGraph(Graph graph) {
+        _nodeCount = graph.getNodes().size();
+        _weights = new int[_nodeCount];
+        _bottomLevels = new int[_nodeCount];
+        _predecessorMasks = new long[_nodeCount][];
+        _identicalSuccessors = new int[_nodeCount];
+        Arrays.fill(_identicalSuccessors, -1);
+        _predecessorOffsets = new int[_nodeCount + 1];
+        _successorOffsets = new int[_nodeCount + 1];
+        _sources = new long[(_nodeCount + 63) >>> 6];
+        long[] nothingScheduled = new long[_sources.length];
+
+        for (int i = 0; i < _nodeCount; i++) {
+            Node node = graph.getNode(i);
+            _weights[i] = node.getWeight();
+            _bottomLevels[i] = graph._bottomLevelWork.get(node.getName());
+            _predecessorMasks[i] = node.getPredecessorMask();
+            if (predecessorsScheduled(i, nothingScheduled)) {
+                _sources[i >>> 6] |= 1L << i;
+            }
+            if (node.getIdenticalPredecessor() != null) {
+                _identicalSuccessors[node.getIdenticalPredecessor().getIndex()] = i;
+            }
+            _predecessorOffsets[i + 1] = _predecessorOffsets[i] + node.getIncoming().size();
+            _successorOffsets[i + 1] = _successorOffsets[i] + node.getOutgoing().size();
+        }
+
+        _predecessors = new int[_predecessorOffsets[_nodeCount]];
+        _predecessorCosts = new int[_predecessors.length];
+        _successors = new int[_successorOffsets[_nodeCount]];
+        _successorCosts = new int[_successors.length];
+        for (int i = 0; i < _nodeCount; i++) {
+            Node node = graph.getNode(i);
+            int position = _predecessorOffsets[i];
+            for (Edge e : node.getIncoming()) {
+                _predecessors[position] = e.getFrom().getIndex();
+                _predecessorCosts[position++] = e.getWeight();
+            }
+            position = _successorOffsets[i];
+            for (Edge e : node.getOutgoing()) {
+                _successors[position] = e.getTo().getIndex();
+                _successorCosts[position++] = e.getWeight();
+            }
+        }
+    }
+
+    /**
+     * Checks if all predecessors of a node are in a bitset of scheduled node indices
+     * @param index
+     * @param scheduled
+     * @return
+     */
+    public boolean predecessorsScheduled(int index, long[] scheduled) {
+        long[] mask = _predecessorMasks[index];
+        for (int i = 0; i < mask.length; i++) {
+            if ((scheduled[i] & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
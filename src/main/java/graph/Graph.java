@@ -9,10 +9,12 @@ public class Graph {
     String _name;
     ArrayList<Node> _start;
     ArrayList<Node> _nodes;
+    Node[] _nodeArray; // nodes by Node.getIndex()
     ArrayList<Edge> _edges;
     HashMap<Integer, HashMap<Integer, Edge>> _edgeMap; // fromId => < toId, Edge >
     int _totalMinimumWork;
     public HashMap<String, Integer> _bottomLevelWork;
+    FrozenGraph _frozenGraph;
 
     public Graph(String name) {
         _name = name;
@@ -26,6 +28,10 @@ public class Graph {
 
     public void setNodes(ArrayList<Node> nodes){
         _nodes = nodes;
+        _nodeArray = new Node[nodes.size()];
+        for (Node node : nodes) {
+            _nodeArray[node.getIndex()] = node;
+        }
     }
 
     public void setTotalMinimumWork(int work) {
@@ -46,6 +52,10 @@ public class Graph {
 
     public List<Node> getNodes() { return _nodes; }
 
+    public Node getNode(int index) {
+        return _nodeArray[index];
+    }
+
     public ArrayList<Edge> getEdges() {
         return _edges;
     }
@@ -59,6 +69,18 @@ public class Graph {
         return _edgeMap.get(fromId).get(toId);
     }
 
+    /**
+     * Array backed view of the graph used by the search. It is built on first use,
+     * so the graph must not be modified afterwards.
+     * @return
+     */
+    public FrozenGraph getFrozenGraph() {
+        if (_frozenGraph == null) {
+            _frozenGraph = new FrozenGraph(this);
+        }
+        return _frozenGraph;
+    }
+
     public String getName() {
         return _name;
     }
@@ -2,6 +2,7 @@ package graph;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class to represent the weighted node
@@ -14,6 +15,8 @@ public class Node {
     ArrayList<Edge> _outgoing;
     ArrayList<Edge> _incoming;
     ArrayList<Node> _parents;
+    long[] _predecessorMask; // bitset of the indices of all predecessors
+    Node _identicalPredecessor; // identical node that has to be scheduled before this one, see Parser
 
     public Node(int id, String name, int weight) {
         _id = id;
@@ -31,6 +34,45 @@ public class Node {
     public void addIncomingEdge(Node from, int weight) {
         _incoming.add(new Edge(from, this, weight));
         _parents.add(from);
+        _predecessorMask = null;
+    }
+
+    /**
+     * Bitset of the indices of all predecessors, including the identical predecessor, computed on first use
+     * after the edges and ids are final
+     * @return
+     */
+    public long[] getPredecessorMask() {
+        if (_predecessorMask == null) {
+            long[] mask = new long[0];
+            ArrayList<Node> predecessors = new ArrayList<>(_parents);
+            if (_identicalPredecessor != null) {
+                predecessors.add(_identicalPredecessor);
+            }
+            for (Node parent : predecessors) {
+                int index = parent.getIndex();
+                if ((index >>> 6) >= mask.length) {
+                    mask = Arrays.copyOf(mask, (index >>> 6) + 1);
+                }
+                mask[index >>> 6] |= 1L << index;
+            }
+            _predecessorMask = mask;
+        }
+        return _predecessorMask;
+    }
+
+    /**
+     * The identical node (same weight, parents, children and edge weights) that has to be scheduled before
+     * this one. This only restricts the order nodes are added to a schedule in, it is not an edge.
+     * @return null if there is none
+     */
+    public Node getIdenticalPredecessor() {
+        return _identicalPredecessor;
+    }
+
+    public void setIdenticalPredecessor(Node node) {
+        _identicalPredecessor = node;
+        _predecessorMask = null;
     }
 
     public ArrayList<Edge> getOutgoing() {
@@ -49,6 +91,14 @@ public class Node {
         return _id;
     }
 
+    /**
+     * Zero based position of the node, used to index the arrays of a PartialSolution
+     * @return
+     */
+    public int getIndex() {
+        return _id - 1;
+    }
+
     public void setId(int id) {
         _id = id;
     }
@@ -0,0 +1,190 @@
+package parallelization;
+
+import algorithm.Cache;
+import algorithm.Incumbent;
+import algorithm.PSManager;
+import algorithm.PSManagerGroup;
+import algorithm.PSManagerWrapper;
+import algorithm.PSPriorityQueue;
+import algorithm.PartialSolution;
+import graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash distributed A* (HDA*). Every partial solution is owned by one worker, chosen by hashing its fingerprint,
+ * and only its owner checks it for duplicates and expands it. Children are sent to their owner through a lock
+ * free mailbox, so each worker keeps its own open list and Cache and no lock is shared between them.
+ *
+ * Workers only stop when none of them has a partial solution left that can beat the incumbent and no partial
+ * solution is on its way to a mailbox, so the incumbent is then optimal.
+ */
+public class HashDistributedSearch {
+    private Graph _graph;
+    private int _processors;
+    private int _totalNodes;
+    private Incumbent _incumbent;
+    private Worker[] _workers;
+
+    // workers that are not idle plus partial solutions that were sent but not received yet, 0 once the search is over
+    private AtomicLong _work = new AtomicLong();
+    private volatile boolean _done;
+
+    /**
+     * @param graph
+     * @param processors
+     * @param workers number of threads
+     * @param incumbent the upper bound shared with the search the partial solutions come from
+     */
+    public HashDistributedSearch(Graph graph, int processors, int workers, Incumbent incumbent) {
+        _graph = graph;
+        _processors = processors;
+        _totalNodes = graph.getNodes().size();
+        _incumbent = incumbent;
+        _workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            _workers[i] = new Worker(graph, processors, incumbent, i);
+        }
+    }
+
+    /**
+     * Hands the fingerprints of the partial solutions that were already generated to their owners
+     * @param cache
+     */
+    public void seed(Cache cache) {
+        long[] entries = cache.entries();
+        for (int i = 0; i < entries.length; i += 2) {
+            _workers[owner(entries[i + 1])]._cache.add(entries[i], entries[i + 1]);
+        }
+    }
+
+    /**
+     * Hands a partial solution that was already checked for duplicates to its owner
+     * @param ps
+     */
+    public void add(PartialSolution ps) {
+        if (ps._nodeCount == _totalNodes) {
+            _incumbent.offer(ps);
+        } else {
+            _workers[owner(ps._fingerprintCheck)]._queue.add(ps);
+        }
+    }
+
+    /**
+     * Runs a thread for every worker until the optimal schedule is found
+     * @param group the managers are added to it for visualisation, may be null
+     * @return the optimal schedule, null if there is no incumbent
+     * @throws InterruptedException
+     */
+    public PartialSolution findOptimal(PSManagerGroup group) throws InterruptedException {
+        Thread[] threads = new Thread[_workers.length];
+        _work.set(_workers.length);
+        for (int i = 0; i < _workers.length; i++) {
+            if (group != null) {
+                group.add(_workers[i]._psManager);
+            }
+            threads[i] = new Thread(_workers[i], "hda-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return _incumbent.getSolution();
+    }
+
+    /**
+     * The first fingerprint lane also indexes the Cache of the owner, so the owner is taken from the second
+     */
+    private int owner(long fingerprintCheck) {
+        return (int) Long.remainderUnsigned(fingerprintCheck, _workers.length);
+    }
+
+    /**
+     * The open list, Cache and mailbox of one thread. It is also the queue its PSManager adds children to,
+     * which sends them on to their owner.
+     */
+    private class Worker extends PSPriorityQueue implements Runnable {
+        private Cache _cache = new Cache(_processors);
+        private Queue<PartialSolution> _mailbox = new ConcurrentLinkedQueue<>();
+        // children owned by other workers, they still share the schedule of their parent until it is expanded
+        private ArrayList<PartialSolution> _outgoing = new ArrayList<>();
+        private PSManager _psManager;
+
+        Worker(Graph graph, int processors, Incumbent incumbent, int id) {
+            super(graph, processors);
+            setIncumbent(incumbent);
+            // duplicates are checked by the owner when a child arrives, not by the manager that generates it
+            _psManager = new PSManagerWrapper(processors, graph, null, id);
+        }
+
+        @Override
+        public void run() {
+            while (!_done) {
+                PartialSolution ps;
+                while ((ps = _mailbox.poll()) != null) {
+                    receive(ps);
+                    _work.decrementAndGet();
+                }
+                ps = _queue.peek();
+                if (ps != null && ps._cost < _incumbent.getBound()) {
+                    _psManager.generateChildren(_queue.poll(), this);
+                    send();
+                } else {
+                    idle();
+                }
+            }
+        }
+
+        /**
+         * Waits until a partial solution arrives, or until every other worker is idle as well
+         */
+        private void idle() {
+            if (_work.decrementAndGet() == 0) {
+                _done = true;
+                return;
+            }
+            while (!_done) {
+                if (!_mailbox.isEmpty()) {
+                    _work.incrementAndGet(); // the partial solution in the mailbox is still counted, so this is never 0
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * Keeps a child for its owner, complete schedules are offered to the incumbent straight away
+         * @param ps
+         */
+        @Override
+        public void add(PartialSolution ps) {
+            if (ps._nodeCount == _totalNodes) {
+                _incumbent.offer(ps);
+            } else if (_workers[owner(ps._fingerprintCheck)] == this) {
+                receive(ps);
+            } else {
+                _outgoing.add(ps);
+            }
+        }
+
+        /**
+         * Sends the children kept by add to their owners, once the expansion no longer uses their schedules
+         */
+        private void send() {
+            _work.addAndGet(_outgoing.size());
+            for (PartialSolution ps : _outgoing) {
+                _workers[owner(ps._fingerprintCheck)]._mailbox.add(ps);
+            }
+            _outgoing.clear();
+        }
+
+        private void receive(PartialSolution ps) {
+            if (ps._cost < _incumbent.getBound() && _cache.add(ps)) {
+                _queue.add(ps);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package parallelization;
+
+import algorithm.Cache;
+import algorithm.Incumbent;
+import algorithm.PSManager;
+import algorithm.PSManagerGroup;
+import algorithm.PSManagerWrapper;
+import algorithm.PSPriorityQueue;
+import algorithm.PartialSolution;
+import algorithm.RecentCache;
+import graph.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel A* where every worker expands the partial solutions of its own open list and shares the Cache and
+ * the incumbent with the others. Every worker publishes the size of its open list and the lowest cost in it, and
+ * a worker that has nothing left that can beat the incumbent steals the best partial solutions of the busiest
+ * worker, the one with the largest open list among those whose lowest cost can still beat the incumbent. No
+ * thread sits idle while there is work, and the worker that is furthest behind is the one that gets help.
+ * Duplicates a worker generated shortly before are recognised by its own RecentCache without touching the
+ * shared Cache.
+ *
+ * Workers only stop when all of them are idle at the same time, which is counted by _active alone, the published
+ * sizes and costs only choose whom to steal from. An idle worker's open list holds nothing that can beat the
+ * incumbent, and only its owner adds to it, so the incumbent is then optimal.
+ */
+public class WorkStealingSearch {
+    private static final int STEAL_LIMIT = 64; // most partial solutions taken from a worker at once
+
+    private int _totalNodes;
+    private Incumbent _incumbent;
+    private Worker[] _workers;
+    private int _next; // worker the next partial solution handed over by add goes to
+
+    // workers that are not idle, including those that are trying to steal, 0 once the search is over
+    private AtomicInteger _active = new AtomicInteger();
+    private volatile boolean _done;
+
+    /**
+     * @param graph
+     * @param processors
+     * @param workers number of threads
+     * @param cache the partial solutions that were already generated, null to not check for duplicates. The
+     *              workers share a copy of it that they can add to without waiting for each other
+     * @param incumbent the upper bound shared with the search the partial solutions come from
+     */
+    public WorkStealingSearch(Graph graph, int processors, int workers, Cache cache, Incumbent incumbent) {
+        _totalNodes = graph.getNodes().size();
+        _incumbent = incumbent;
+        if (cache != null) {
+            cache = cache.forThreads(workers);
+        }
+        _workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            _workers[i] = new Worker(graph, processors, cache, incumbent, i);
+        }
+    }
+
+    /**
+     * Hands a partial solution that was already checked for duplicates to the workers, in turn
+     * @param ps
+     */
+    public void add(PartialSolution ps) {
+        if (ps._nodeCount == _totalNodes) {
+            _incumbent.offer(ps);
+        } else {
+            _workers[_next]._queue.add(ps);
+            _workers[_next].publish();
+            _next = (_next + 1) % _workers.length;
+        }
+    }
+
+    /**
+     * Runs a thread for every worker until the optimal schedule is found
+     * @param group the managers are added to it for visualisation, may be null
+     * @return the optimal schedule, null if there is no incumbent
+     * @throws InterruptedException
+     */
+    public PartialSolution findOptimal(PSManagerGroup group) throws InterruptedException {
+        Thread[] threads = new Thread[_workers.length];
+        _active.set(_workers.length);
+        for (int i = 0; i < _workers.length; i++) {
+            if (group != null) {
+                group.add(_workers[i]._psManager);
+            }
+            threads[i] = new Thread(_workers[i], "worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return _incumbent.getSolution();
+    }
+
+    /**
+     * @return the share of duplicate checks the RecentCache of the workers answered without the shared Cache
+     */
+    public double getRecentHitRatio() {
+        long lookups = 0;
+        long hits = 0;
+        for (Worker worker : _workers) {
+            if (worker._recentCache != null) {
+                lookups += worker._recentCache.getLookups();
+                hits += worker._recentCache.getHits();
+            }
+        }
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * The open list of one thread, guarded by the worker itself as other workers steal from it. It is also the
+     * queue its PSManager adds children to.
+     */
+    private class Worker extends PSPriorityQueue implements Runnable {
+        // children of the expansion in progress, they share the schedule of their parent until it is over
+        private ArrayList<PartialSolution> _children = new ArrayList<>();
+        private PSManager _psManager;
+        private RecentCache _recentCache; // null if duplicates are not checked
+        private volatile int _lowestCost = Integer.MAX_VALUE; // cost of the best partial solution in the open list
+        private volatile int _size; // number of partial solutions in the open list
+
+        Worker(Graph graph, int processors, Cache cache, Incumbent incumbent, int id) {
+            super(graph, processors);
+            setIncumbent(incumbent);
+            if (cache != null) {
+                _recentCache = new RecentCache(processors, cache);
+            }
+            _psManager = new PSManagerWrapper(processors, graph, _recentCache, id);
+        }
+
+        @Override
+        public void run() {
+            while (!_done) {
+                PartialSolution ps = next();
+                if (ps != null) {
+                    _psManager.generateChildren(ps, this);
+                    addChildren();
+                } else {
+                    idle();
+                }
+            }
+        }
+
+        /**
+         * @return the best partial solution of the open list, null if it can not beat the incumbent
+         */
+        private synchronized PartialSolution next() {
+            PartialSolution ps = _queue.peek();
+            if (ps == null || ps._cost >= _incumbent.getBound()) {
+                return null;
+            }
+            _queue.poll();
+            publish();
+            return ps;
+        }
+
+        /**
+         * Publishes the size and the lowest cost of the open list, the worker must hold its own lock
+         */
+        private void publish() {
+            PartialSolution ps = _queue.peek();
+            _lowestCost = ps == null ? Integer.MAX_VALUE : ps._cost;
+            _size = _queue.size();
+        }
+
+        /**
+         * Keeps a child until the expansion is over, complete schedules are offered to the incumbent straight away
+         * @param ps
+         */
+        @Override
+        public void add(PartialSolution ps) {
+            if (ps._nodeCount == _totalNodes) {
+                _incumbent.offer(ps);
+            } else {
+                _children.add(ps);
+            }
+        }
+
+        private synchronized void addChildren() {
+            _queue.addAll(_children);
+            _children.clear();
+            publish();
+        }
+
+        /**
+         * Steals until it gets a partial solution, or until every other worker is idle as well
+         */
+        private void idle() {
+            if (_active.decrementAndGet() == 0) {
+                _done = true;
+                return;
+            }
+            while (!_done) {
+                _active.incrementAndGet(); // stolen partial solutions are never held by a worker that is not counted
+                if (steal()) {
+                    return;
+                }
+                if (_active.decrementAndGet() == 0) {
+                    _done = true;
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * Takes the best partial solutions of the worker with the largest open list that can beat the incumbent
+         * @return true if any were taken
+         */
+        private boolean steal() {
+            Worker victim = null;
+            int largestSize = 0;
+            int bound = _incumbent.getBound();
+            for (Worker worker : _workers) {
+                if (worker != this && worker._lowestCost < bound && worker._size > largestSize) {
+                    victim = worker;
+                    largestSize = worker._size;
+                }
+            }
+            if (victim == null) {
+                return false; // nobody has anything that can beat the incumbent
+            }
+            List<PartialSolution> stolen = victim.give();
+            if (stolen.isEmpty()) {
+                return false;
+            }
+            synchronized (this) {
+                _queue.addAll(stolen);
+                publish();
+            }
+            return true;
+        }
+
+        /**
+         * @return up to half of the partial solutions that can beat the incumbent, best first
+         */
+        private synchronized List<PartialSolution> give() {
+            List<PartialSolution> given = new ArrayList<>();
+            int count = Math.min(STEAL_LIMIT, (_queue.size() + 1) / 2);
+            while (given.size() < count) {
+                PartialSolution ps = next();
+                if (ps == null) {
+                    break;
+                }
+                given.add(ps);
+            }
+            return given;
+        }
+    }
+}
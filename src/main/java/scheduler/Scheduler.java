@@ -11,6 +11,7 @@ import logger.Logger;
 import parallelization.Parallelization;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutionException;
@@ -44,6 +45,17 @@ public class Scheduler {
     private static boolean _parallelOn = false;
     private static boolean _parallelization;
 
+    // search algorithms selectable with -a
+    public static final String A_STAR = "astar";
+    public static final String IDA_STAR = "idastar";
+    public static final String DFBNB = "dfbnb";
+    private static String _algorithm = A_STAR;
+    private static double _epsilon = 0; // allowed suboptimality of A* set with -e, 0 for an optimal schedule
+    private static int _cacheMegabytes = 0; // size of the memory mapped cache set with -c, 0 to keep it on the heap
+    private static int _spillLimit = 0; // partial solutions kept in memory set with -s, 0 to never spill to disk
+    private static boolean _hashDistributed = false; // parallel search gives partial solutions an owner, set with -d
+    private static int _bloomMegabytes = 0; // size of the approximate Bloom filter cache set with -b, 0 for an exact cache
+
 
     /**
      * Command line entry for the algorithm
@@ -78,9 +90,19 @@ public class Scheduler {
     public static PartialSolution parseConsole(String[] args) throws InvalidInputException, Exception {
         int argLength = args.length;
         boolean customOutput = false;
-        //argument must have at most 7 space separated strings.
+        //options of an earlier call must not carry over to this one.
+        _cores = 1;
+        _parallelOn = false;
+        _visualize = false;
+        _algorithm = A_STAR;
+        _epsilon = 0;
+        _cacheMegabytes = 0;
+        _spillLimit = 0;
+        _hashDistributed = false;
+        _bloomMegabytes = 0;
+        //argument must have at most 18 space separated strings.
         //mandatory arguments require 2 space separated strings.
-        if ((argLength < 2) || (argLength > 7)) {
+        if ((argLength < 2) || (argLength > 18)) {
             throw new InvalidInputException("Invalid number of arguments.");
         }
         //first string is input filename. Must be a .dot file.
@@ -109,8 +131,61 @@ public class Scheduler {
                 case "-o":
                     _outputFile = args[i + 1];
                     customOutput = true;
+                    break;
+                case "-a":
+                    _algorithm = args[i + 1];
+                    if (!_algorithm.equals(A_STAR) && !_algorithm.equals(IDA_STAR) && !_algorithm.equals(DFBNB)) {
+                        throw new InvalidInputException("Unknown algorithm " + _algorithm + ".");
+                    }
+                    break;
+                case "-e":
+                    _epsilon = Double.valueOf(args[i + 1]);
+                    if (_epsilon < 0) {
+                        throw new InvalidInputException("Epsilon can not be negative.");
+                    }
+                    break;
+                case "-c":
+                    _cacheMegabytes = Integer.valueOf(args[i + 1]);
+                    if (_cacheMegabytes < 1) {
+                        throw new InvalidInputException("The cache needs at least 1 MB.");
+                    }
+                    break;
+                case "-s":
+                    _spillLimit = Integer.valueOf(args[i + 1]);
+                    if (_spillLimit < 2) {
+                        throw new InvalidInputException("At least 2 states have to be kept in memory.");
+                    }
+                    break;
+                case "-d":
+                    _hashDistributed = true;
+                    break;
+                case "-b":
+                    _bloomMegabytes = Integer.valueOf(args[i + 1]);
+                    if (_bloomMegabytes < 1 || _bloomMegabytes > BloomCache.MAX_MEGABYTES) {
+                        throw new InvalidInputException("The Bloom filter needs between 1 and " + BloomCache.MAX_MEGABYTES + " MB.");
+                    }
+                    break;
             }
         }
+        if (!_algorithm.equals(A_STAR) && (_visualize || _parallelOn)) {
+            throw new InvalidInputException("Visualisation and parallelisation are only available with " + A_STAR + ".");
+        }
+        if (_epsilon > 0 && (!_algorithm.equals(A_STAR) || _parallelOn)) {
+            throw new InvalidInputException("Epsilon is only available with sequential " + A_STAR + ".");
+        }
+        if (_cacheMegabytes > 0 && (!_algorithm.equals(A_STAR) || _hashDistributed)) {
+            // hash distributed threads copy the cache into tables of their own on the heap
+            throw new InvalidInputException("The mapped cache is only available with " + A_STAR + " without -d.");
+        }
+        if (_spillLimit > 0 && (!_algorithm.equals(A_STAR) || _parallelOn || _epsilon > 0)) {
+            throw new InvalidInputException("Spilling to disk is only available with sequential " + A_STAR + " without epsilon.");
+        }
+        if (_hashDistributed && !_parallelOn) {
+            throw new InvalidInputException("Hash distribution is only available with -p.");
+        }
+        if (_bloomMegabytes > 0 && (!_algorithm.equals(A_STAR) || _cacheMegabytes > 0 || _hashDistributed)) {
+            throw new InvalidInputException("The Bloom filter is only available with " + A_STAR + " without -c and -d.");
+        }
         //use the parser to generate a graph from the input .dot file.
         _graph = Parser.parseDotFile(_inputFile);
         //if user did not define an output file name, make a default one based on graph name.
@@ -125,7 +200,10 @@ public class Scheduler {
             Logger.error("null solution. Are you sure this is a valid task graph?");
         }
         System.out.println(_consolePrefix + "Found a schedule to " + _graph.getName() + " (" + _graph.getNodes().size() + " nodes) in " + totalTime + "ms.");
-        System.out.println(_consolePrefix + "End time of this schedule is " + ps._latestSlot.getFinish() + ".");
+        System.out.println(_consolePrefix + "End time of this schedule is " + ps._currentFinishTime + ".");
+        if (_epsilon > 0) {
+            System.out.println(_consolePrefix + "No schedule can end before " + _priorityQueue.getLowerBound() + ".");
+        }
         System.out.println(_consolePrefix + "Outputting to file \"" + _outputFile + "\"...");
         parseOutput(ps); // output to file
         System.out.println(_consolePrefix + "Finished!");
@@ -140,6 +218,11 @@ public class Scheduler {
      * @return the valid optimal schedule
      */
     private static PartialSolution solution() throws ExecutionException, InterruptedException {
+        if (_algorithm.equals(IDA_STAR)) {
+            return new DepthFirstSearch(_graph, _processors).iterativeDeepening();
+        } else if (_algorithm.equals(DFBNB)) {
+            return new DepthFirstSearch(_graph, _processors).branchAndBound();
+        }
         // Priority queue containing generated states
          _priorityQueue = new PSPriorityQueue(_graph, _processors);
         _priorityQueue.initialise();
@@ -163,7 +246,7 @@ public class Scheduler {
                             if (_stopTimer) this.cancel();
                             if (_listener != null) {
                                 boolean isFinished = false;
-                                if (_graph.getNodes().size() == _psManager._currentStatPS._nodes.size()) isFinished = true;
+                                if (_graph.getNodes().size() == _psManager._currentStatPS._nodeCount) isFinished = true;
                                 _listener.update(isFinished, _psManager._currentStatPS, _psManager._nodeVisitCounts, _psManager._memory, _psManager._cost,
                                         _psManager._currentFinishTime, _psManager._statesExplored, _psManager._loaded);
                             }
@@ -175,7 +258,29 @@ public class Scheduler {
         } else {
             _psManager = new PSManager(_processors, _graph);
         }
+        if (_cacheMegabytes > 0) {
+            try {
+                _psManager.setCache(new MappedCache(_processors, _cacheMegabytes));
+            } catch (IOException e) {
+                System.out.println(_consolePrefix + "Could not map the cache (" + e.getMessage() + "), keeping it on the heap.");
+            }
+        }
+        BloomCache bloomCache = null;
+        if (_bloomMegabytes > 0) {
+            bloomCache = new BloomCache(_processors, _bloomMegabytes, _priorityQueue.getIncumbent());
+            _psManager.setCache(bloomCache);
+            System.out.println(_consolePrefix + String.format("The Bloom filter holds %d states before its false positive probability reaches 0.1%%.",
+                    bloomCache.getCapacity()));
+        }
 
+        // seed the search with a list schedule, so partial solutions that can not beat it are discarded
+        _priorityQueue.getIncumbent().offer(_psManager.completeGreedily(new PartialSolution(_processors, _graph)));
+        if (_epsilon > 0) {
+            _priorityQueue.setWeight(1 + _epsilon);
+        }
+        if (_spillLimit > 0) {
+            _priorityQueue.setSpillLimit(_spillLimit);
+        }
 
         //priority queue will terminate upon the first instance of a total solution
         while (_priorityQueue.hasNext()) {
@@ -190,8 +295,13 @@ public class Scheduler {
                     _group = new PSManagerGroup(_cores);
                     updater.cancel(); // kill the main queue updater
                 }
-                Parallelization parallelize = new Parallelization(_priorityQueue, _processors, _graph, _cores, _psManager.getCache());
+                Parallelization parallelize = new Parallelization(_priorityQueue, _processors, _graph, _cores, _psManager.getCache(),
+                        _hashDistributed);
                 ps = parallelize.findOptimal(_group);
+                if (parallelize.getRecentHitRatio() >= 0) {
+                    System.out.println(_consolePrefix + String.format("%.1f%% of duplicate checks were answered by the threads' recent states.",
+                            parallelize.getRecentHitRatio() * 100));
+                }
                 break;
             }
 
@@ -200,6 +310,10 @@ public class Scheduler {
         if (!_parallelization){
             ps = _priorityQueue.getCurrentPartialSolution();
         }
+        if (bloomCache != null) {
+            System.out.println(_consolePrefix + String.format("The Bloom filter holds %d states with a false positive probability of %.2g, about %.2f states may have been pruned wrongly.",
+                    bloomCache.size(), bloomCache.getFalsePositiveProbability(), bloomCache.getWronglyPruned()));
+        }
         // done
         final PartialSolution finalPS = ps;
         if (_parallelization && _visualize) {
@@ -214,7 +328,7 @@ public class Scheduler {
                             if (_stopTimer) this.cancel();
                             if (_listener != null) {
                                 _listener.update(true, finalPS, currentManager._nodeVisitCounts, currentManager._memory, finalPS._cost,
-                                        finalPS._latestSlot.getFinish(), currentManager._statesExplored, currentManager._loaded);
+                                        finalPS._currentFinishTime, currentManager._statesExplored, currentManager._loaded);
                             }
                         }
                     };
@@ -230,7 +344,7 @@ public class Scheduler {
                             if (_stopTimer) this.cancel();
                             if (_listener != null) {
                                 _listener.update(true, finalPS, _psManager._nodeVisitCounts, _psManager._memory, finalPS._cost,
-                                        finalPS._latestSlot.getFinish(), _psManager._statesExplored, _psManager._loaded);
+                                        finalPS._currentFinishTime, _psManager._statesExplored, _psManager._loaded);
                             }
                         }
                     };
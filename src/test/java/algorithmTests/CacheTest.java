@@ -0,0 +1,174 @@
+package algorithmTests;
+
+import algorithm.BloomCache;
+import algorithm.Cache;
+import algorithm.Incumbent;
+import algorithm.MappedCache;
+import algorithm.PartialSolution;
+import algorithm.RecentCache;
+import algorithm.StripedCache;
+import dotParser.Parser;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the duplicate detection of the Cache implementations on their own
+ */
+public class CacheTest {
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Tests that a full MappedCache treats new fingerprints as new without storing them, and still
+     * recognises the ones it holds
+     */
+    @Test
+    public void testFullMappedCache() throws IOException {
+        Cache cache = new MappedCache(2, 1);
+        int stored = 0;
+        while (cache.add(fingerprint(stored), stored) && cache.size() > stored) {
+            stored++;
+        }
+        // the fingerprint that did not fit was reported as new, but not stored
+        assertEquals("The table should be full", stored, cache.size());
+        assertFalse("A fingerprint that did not fit should not be found", cache.contains(fingerprint(stored), stored));
+        assertTrue("A fingerprint that did not fit should be new again", cache.add(fingerprint(stored), stored));
+        for (int i = 0; i < stored; i++) {
+            assertTrue("A stored fingerprint should be found", cache.contains(fingerprint(i), i));
+            assertFalse("A stored fingerprint should not be added again", cache.add(fingerprint(i), i));
+        }
+        assertEquals("The table should not grow once it is full", stored, cache.size());
+        assertEquals("Every stored fingerprint should be listed", stored * 2, cache.entries().length);
+    }
+
+    /**
+     * Tests that threads adding overlapping fingerprints to a StripedCache at the same time neither lose
+     * one nor add one twice
+     */
+    @Test
+    public void testConcurrentStripedCache() throws InterruptedException {
+        int threadCount = 4;
+        int perThread = 20000;
+        Cache cache = new StripedCache(2, 8);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger(); // fingerprints not found right after they were added
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int first = t * perThread / 2; // half of the fingerprints of a thread are also added by the next one
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < first + perThread; i++) {
+                    if (cache.add(fingerprint(i), i)) {
+                        added.incrementAndGet();
+                    }
+                    if (!cache.contains(fingerprint(i), i)) {
+                        missing.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int distinct = (threadCount + 1) * perThread / 2;
+        assertEquals("A fingerprint that was added should be found", 0, missing.get());
+        assertEquals("Every fingerprint should be added exactly once", distinct, added.get());
+        assertEquals("Every fingerprint should be stored exactly once", distinct, cache.size());
+        assertEquals(distinct * 2, cache.entries().length);
+        for (int i = 0; i < distinct; i++) {
+            assertTrue("No fingerprint should be lost", cache.contains(fingerprint(i), i));
+        }
+        assertFalse(cache.contains(fingerprint(distinct), distinct));
+    }
+
+    /**
+     * Tests that a RecentCache answers the fingerprints it saw itself without the shared Cache, and counts
+     * every lookup once
+     */
+    @Test
+    public void testRecentCache() {
+        int[] sharedLookups = new int[1];
+        Cache shared = new Cache(2) {
+            @Override
+            public synchronized boolean contains(long fingerprint, long fingerprintCheck) {
+                sharedLookups[0]++;
+                return super.contains(fingerprint, fingerprintCheck);
+            }
+        };
+        RecentCache cache = new RecentCache(2, shared);
+
+        assertFalse("A new fingerprint should not be found", cache.contains(fingerprint(0), 0));
+        assertTrue("A new fingerprint should be added", cache.add(fingerprint(0), 0));
+        assertTrue("The shared Cache should hold it", shared.contains(fingerprint(0), 0));
+        assertEquals(1, cache.getLookups());
+        assertEquals(0, cache.getHits());
+
+        sharedLookups[0] = 0;
+        assertTrue(cache.contains(fingerprint(0), 0));
+        assertFalse(cache.add(fingerprint(0), 0));
+        assertEquals("A fingerprint added by the thread should be found without the shared Cache", 0, sharedLookups[0]);
+        assertEquals(2, cache.getLookups());
+        assertEquals(1, cache.getHits());
+
+        shared.add(fingerprint(1), 1); // added by another thread
+        assertTrue(cache.contains(fingerprint(1), 1));
+        assertEquals("A fingerprint of another thread should be found in the shared Cache", 1, sharedLookups[0]);
+        assertTrue(cache.contains(fingerprint(1), 1));
+        assertEquals("It should then be remembered", 1, sharedLookups[0]);
+        assertEquals(4, cache.getLookups());
+        assertEquals(2, cache.getHits());
+    }
+
+    /**
+     * Tests that the largest Bloom filter the Scheduler accepts fits in an array, and that larger ones are
+     * capped instead of overflowing
+     */
+    @Test
+    public void testBloomCacheSize() {
+        long bits = BloomCache.bitCount(BloomCache.MAX_MEGABYTES);
+        assertEquals((long) BloomCache.MAX_MEGABYTES << 23, bits);
+        assertTrue("The longs of the filter should fit in an array", bits >>> 6 <= Integer.MAX_VALUE);
+        assertEquals(bits, BloomCache.bitCount(Integer.MAX_VALUE));
+        assertEquals(1L << 23, BloomCache.bitCount(1));
+    }
+
+    /**
+     * Tests that a BloomCache finds what was added, and keeps the partial solutions close to the incumbent
+     * exactly
+     */
+    @Test
+    public void testBloomCache() {
+        Incumbent incumbent = new Incumbent();
+        PartialSolution complete = new PartialSolution(2, Parser.parseDotFile(new File("src/test/resources/exampleSmall.dot")));
+        complete._currentFinishTime = 100;
+        incumbent.offer(complete);
+        BloomCache cache = new BloomCache(2, 1, incumbent);
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            assertTrue("A new fingerprint should be added", cache.add(fingerprint(i), i, 10));
+        }
+        for (int i = 0; i < count; i++) {
+            assertFalse("A fingerprint should not be added twice", cache.add(fingerprint(i), i, 10));
+            assertTrue("There are no false negatives", cache.contains(fingerprint(i), i, 10));
+        }
+        assertTrue(cache.add(fingerprint(count), count, 99));
+        assertTrue("A lookup without a cost should find the exact fingerprints", cache.contains(fingerprint(count), count));
+        assertFalse("A lookup without a cost should not consult the filter", cache.contains(fingerprint(0), 0));
+        assertEquals(count + 1, cache.size());
+        assertEquals("Only the exact fingerprints can be listed", 2, cache.entries().length);
+        assertTrue(cache.getWronglyPruned() >= 0 && cache.getWronglyPruned() < 1e-6);
+        assertTrue(cache.getCapacity() > count);
+    }
+
+    private static long fingerprint(int i) {
+        return (i + 1) * SPREAD;
+    }
+}
@@ -0,0 +1,75 @@
+package algorithmTests;
+
+import algorithm.PSManager;
+import algorithm.PSPriorityQueue;
+import algorithm.PartialSolution;
+import algorithm.Schedule;
+import dotParser.Parser;
+import graph.Graph;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the data ready time of a child calculated from its parent is the same as the one calculated
+ * from the whole schedule, including the nodes freed by an identical task
+ */
+public class DataReadyTimeTest {
+    private File _identicalFile = new File("src/test/resources/Identical_Fork_Join.dot");
+
+    @Test
+    public void testIdenticalTasks() {
+        Graph graph = Parser.parseDotFile(_identicalFile);
+        for (int processors = 2; processors <= 4; processors++) {
+            CheckingPSManager psManager = new CheckingPSManager(processors, graph);
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            while (priorityQueue.hasNext()) {
+                psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+            }
+            assertTrue("Children should have been checked", psManager._checked > 0);
+        }
+    }
+
+    @Test
+    public void testInputs() {
+        for (File file : new File("input-graphs").listFiles((dir, name) -> name.startsWith("Nodes_1"))) {
+            Graph graph = Parser.parseDotFile(file);
+            CheckingPSManager psManager = new CheckingPSManager(2, graph);
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, 2);
+            priorityQueue.initialise();
+            while (priorityQueue.hasNext()) {
+                psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+            }
+        }
+    }
+
+    /**
+     * Compares the data ready time every child was given with the one of its whole schedule
+     */
+    private static class CheckingPSManager extends PSManager {
+        private int _childDataReadyTime;
+        private int _checked;
+
+        CheckingPSManager(int processors, Graph graph) {
+            super(processors, graph);
+        }
+
+        @Override
+        protected int childDataReadyTime(Schedule schedule, int addedNode, int processor) {
+            _childDataReadyTime = super.childDataReadyTime(schedule, addedNode, processor);
+            return _childDataReadyTime;
+        }
+
+        @Override
+        protected void checkAndAdd(PartialSolution ps, int processorIndex, PSPriorityQueue queue) {
+            assertEquals("Data ready time of a child should not depend on how it is calculated",
+                    calculateDataReadyTime(ps), _childDataReadyTime);
+            _checked++;
+            super.checkAndAdd(ps, processorIndex, queue);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package algorithmTests;
+
+import algorithm.Incumbent;
+import algorithm.PSManager;
+import algorithm.PartialSolution;
+import algorithm.SpillingBucketQueue;
+import dotParser.Parser;
+import graph.Graph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that partial solutions written to disk by the SpillingBucketQueue are read back unchanged
+ */
+public class SpillingBucketQueueTest {
+    private static final int PROCESSORS = 200; // more than a byte can hold
+    private static final int SKIPPED_WORDS = 150;
+
+    private Graph _graph;
+    private PSManager _psManager;
+    private Incumbent _incumbent;
+
+    @Before
+    public void createGraph() {
+        _graph = Parser.parseDotFile(new File("src/test/resources/exampleSmall.dot"));
+        _psManager = new PSManager(PROCESSORS, _graph);
+        _incumbent = new Incumbent();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        SpillingBucketQueue queue = new SpillingBucketQueue(_graph.getNodes().size(), 2, _psManager, PROCESSORS, _incumbent);
+        PartialSolution low = partialSolution(5, null, 0, 150, 0);
+        long[] skippedNodes = new long[SKIPPED_WORDS];
+        for (int i = 0; i < skippedNodes.length; i++) {
+            skippedNodes[i] = -1L - i;
+        }
+        PartialSolution first = partialSolution(10, skippedNodes, 0, 199, 0, 1, 130, 70000);
+        PartialSolution second = partialSolution(10, null, 0, 128, 3, 2, 150, 5);
+        queue.add(low);
+        queue.add(first);
+        queue.add(second); // the layer of cost 10 is spilled
+        assertEquals(3, queue.size());
+
+        assertEquals("The lowest cost stays in memory", low, queue.poll());
+        List<PartialSolution> readBack = new ArrayList<>();
+        readBack.add(queue.poll());
+        readBack.add(queue.poll());
+        assertNull(queue.poll());
+        readBack.sort((a, b) -> Integer.compare(a._node, b._node));
+        assertSameSlots(first, readBack.get(0));
+        assertArrayEquals(skippedNodes, readBack.get(0)._skippedNodes);
+        assertSameSlots(second, readBack.get(1));
+        assertNull(readBack.get(1)._skippedNodes);
+    }
+
+    @Test
+    public void testDropBeyondIncumbent() {
+        SpillingBucketQueue queue = new SpillingBucketQueue(_graph.getNodes().size(), 2, _psManager, PROCESSORS, _incumbent);
+        PartialSolution low = partialSolution(5, null, 0, 0, 0);
+        queue.add(low);
+        queue.add(partialSolution(10, null, 0, 1, 0));
+        queue.add(partialSolution(10, null, 0, 2, 0));
+        PartialSolution complete = new PartialSolution(PROCESSORS, _graph);
+        complete._currentFinishTime = 10;
+        _incumbent.offer(complete);
+
+        assertEquals(low, queue.poll());
+        assertNull("A layer that can not beat the incumbent should not be read back", queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * @param cost
+     * @param skippedNodes
+     * @param slots (node, processor, start) triples
+     * @return a partial solution without a schedule
+     */
+    private PartialSolution partialSolution(int cost, long[] skippedNodes, int... slots) {
+        PartialSolution[] chain = new PartialSolution[slots.length / 3 + 1];
+        chain[0] = new PartialSolution(PROCESSORS, _graph);
+        chain[0].materialise();
+        for (int i = 0; i < slots.length; i += 3) {
+            chain[i / 3 + 1] = new PartialSolution(chain[i / 3]);
+            _psManager.addSlot(chain[i / 3 + 1], slots[i], slots[i + 2], slots[i + 1]);
+        }
+        for (int depth = chain.length - 1; depth > 0; depth--) {
+            _psManager.removeSlot(chain[depth]);
+        }
+        chain[0].release();
+        PartialSolution ps = chain[chain.length - 1];
+        ps._cost = cost;
+        ps._skippedNodes = skippedNodes;
+        return ps;
+    }
+
+    private static void assertSameSlots(PartialSolution expected, PartialSolution actual) {
+        assertEquals(expected._cost, actual._cost);
+        assertEquals(expected._nodeCount, actual._nodeCount);
+        for (; expected._node != -1; expected = expected._parent, actual = actual._parent) {
+            assertEquals(expected._node, actual._node);
+            assertEquals(expected._processor, actual._processor);
+            assertEquals(expected._start, actual._start);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package regressionTests;
 
+import algorithm.BloomCache;
+import algorithm.Cache;
+import algorithm.DepthFirstSearch;
+import algorithm.MappedCache;
 import algorithm.PSManager;
 import algorithm.PSManagerGroup;
 import algorithm.PSPriorityQueue;
@@ -9,15 +13,19 @@ import graph.Graph;
 import logger.Logger;
 import org.junit.Before;
 import org.junit.Test;
+import parallelization.HashDistributedSearch;
 import parallelization.Parallelization;
+import parallelization.WorkStealingSearch;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -111,7 +119,7 @@ public class RegressionTest {
                 // check solution has an optimal finish time, and that this is equal to the final cost estimate
                 assertEquals("Cost of graph " + graph.getName() + " on " + processorNumber + " processors should be " + expectedCost,
                         expectedCost, testCost);
-                assertEquals("Cost should equal finish time", testCost, ps._latestSlot.getFinish());
+                assertEquals("Cost should equal finish time", testCost, ps.getLatestSlot().getFinish());
 
                 // check solution is a valid schedule
                 assertTrue("The produced schedule should be valid", isValid);
@@ -127,6 +135,206 @@ public class RegressionTest {
         }
     }
 
+    /**
+     * Tests that seeding the search with a list schedule as the upper bound still finds the optimal schedule,
+     * and that the list schedule itself is valid and never better than optimal.
+     */
+    @Test
+    public void testSeededInputs() {
+        for (String graphFileName : _costDictionary.keySet()) {
+            String[] processorArray = _costDictionary.get(graphFileName);
+            Graph graph = Parser.parseDotFile(new File("input-graphs/" + graphFileName));
+            for (int processorNumber = 1; processorNumber <= processorArray.length; processorNumber++) {
+                int expectedCost = Integer.parseInt(processorArray[processorNumber - 1]);
+                if (expectedCost == 0) {
+                    continue;
+                }
+                PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processorNumber);
+                priorityQueue.initialise();
+                PSManager psManager = new PSManager(processorNumber, graph);
+                PartialSolution listSchedule = psManager.completeGreedily(new PartialSolution(processorNumber, graph));
+                assertTrue("The list schedule should be valid", scheduleIsValid(graph, listSchedule));
+                assertTrue("The list schedule can not beat the optimal schedule", listSchedule._cost >= expectedCost);
+                priorityQueue.getIncumbent().offer(listSchedule);
+
+                while (priorityQueue.hasNext()) {
+                    psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+                }
+                PartialSolution ps = priorityQueue.getCurrentPartialSolution();
+                assertEquals("Cost of graph " + graph.getName() + " on " + processorNumber + " processors should be " + expectedCost,
+                        expectedCost, ps._cost);
+                assertEquals("Cost should equal finish time", ps._cost, ps.getLatestSlot().getFinish());
+                assertTrue("The produced schedule should be valid", scheduleIsValid(graph, ps));
+            }
+        }
+    }
+
+    /**
+     * Tests that iterative deepening A* finds an optimal schedule for all inputs
+     */
+    @Test
+    public void testIterativeDeepening() {
+        assertOptimal((graph, processors) -> new DepthFirstSearch(graph, processors).iterativeDeepening());
+    }
+
+    /**
+     * Tests that depth first branch and bound finds an optimal schedule for all inputs
+     */
+    @Test
+    public void testBranchAndBound() {
+        assertOptimal((graph, processors) -> new DepthFirstSearch(graph, processors).branchAndBound());
+    }
 
+    /**
+     * Tests that weighted A* finds a valid schedule within its suboptimality bound, and a lower bound that
+     * does not exceed the optimal cost
+     */
+    @Test
+    public void testWeighted() {
+        double epsilon = 0.1;
+        for (String graphFileName : _costDictionary.keySet()) {
+            String[] processorArray = _costDictionary.get(graphFileName);
+            Graph graph = Parser.parseDotFile(new File("input-graphs/" + graphFileName));
+            for (int processorNumber = 1; processorNumber <= processorArray.length; processorNumber++) {
+                int expectedCost = Integer.parseInt(processorArray[processorNumber - 1]);
+                if (expectedCost == 0) {
+                    continue;
+                }
+                PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processorNumber);
+                priorityQueue.initialise();
+                priorityQueue.setWeight(1 + epsilon);
+                PSManager psManager = new PSManager(processorNumber, graph);
+                while (priorityQueue.hasNext()) {
+                    psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+                }
+                PartialSolution ps = priorityQueue.getCurrentPartialSolution();
+                assertTrue("Cost of graph " + graph.getName() + " on " + processorNumber + " processors should be within bound",
+                        ps._cost <= (1 + epsilon) * expectedCost);
+                assertTrue("Lower bound can not exceed the optimal cost", priorityQueue.getLowerBound() <= expectedCost);
+                assertEquals("Cost should equal finish time", ps._cost, ps.getLatestSlot().getFinish());
+                assertTrue("The produced schedule should be valid", scheduleIsValid(graph, ps));
+            }
+        }
+    }
 
+    /**
+     * Tests that hash distributed A* finds an optimal schedule for all inputs, with more threads than the
+     * queue used to be split into
+     */
+    @Test
+    public void testHashDistributed() {
+        assertOptimal((graph, processors) -> {
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            HashDistributedSearch search = new HashDistributedSearch(graph, processors, 8, priorityQueue.getIncumbent());
+            while (priorityQueue.size() > 0) {
+                search.add(priorityQueue._queue.poll());
+            }
+            try {
+                return search.findOptimal(null);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Tests that the work stealing search finds an optimal schedule for all inputs, with more threads than the
+     * queue used to be split into
+     */
+    @Test
+    public void testWorkStealing() {
+        assertOptimal((graph, processors) -> {
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            WorkStealingSearch search = new WorkStealingSearch(graph, processors, 8, new Cache(processors),
+                    priorityQueue.getIncumbent());
+            while (priorityQueue.size() > 0) {
+                search.add(priorityQueue._queue.poll());
+            }
+            try {
+                return search.findOptimal(null);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Tests that A* finds an optimal schedule for all inputs when its open list keeps so few partial
+     * solutions in memory that it spills to disk all the time
+     */
+    @Test
+    public void testSpilling() {
+        assertOptimal((graph, processors) -> {
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            PSManager psManager = new PSManager(processors, graph);
+            priorityQueue.getIncumbent().offer(psManager.completeGreedily(new PartialSolution(processors, graph)));
+            priorityQueue.setSpillLimit(16);
+            while (priorityQueue.hasNext()) {
+                psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+            }
+            return priorityQueue.getCurrentPartialSolution();
+        });
+    }
+
+    /**
+     * Tests that A* with a memory mapped cache finds an optimal schedule for all inputs, with a table small
+     * enough to fill up on the larger ones
+     */
+    @Test
+    public void testMappedCache() {
+        assertOptimal((graph, processors) -> {
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            PSManager psManager = new PSManager(processors, graph);
+            try {
+                psManager.setCache(new MappedCache(processors, 1));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            while (priorityQueue.hasNext()) {
+                psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+            }
+            return priorityQueue.getCurrentPartialSolution();
+        });
+    }
+
+    /**
+     * Tests that A* with a Bloom filter as its cache finds an optimal schedule for all inputs when the filter
+     * is large enough for false positives to be negligible
+     */
+    @Test
+    public void testBloomFilter() {
+        assertOptimal((graph, processors) -> {
+            PSPriorityQueue priorityQueue = new PSPriorityQueue(graph, processors);
+            priorityQueue.initialise();
+            PSManager psManager = new PSManager(processors, graph);
+            psManager.setCache(new BloomCache(processors, 1, priorityQueue.getIncumbent()));
+            priorityQueue.getIncumbent().offer(psManager.completeGreedily(new PartialSolution(processors, graph)));
+            while (priorityQueue.hasNext()) {
+                psManager.generateChildren(priorityQueue.getCurrentPartialSolution(), priorityQueue);
+            }
+            return priorityQueue.getCurrentPartialSolution();
+        });
+    }
+
+    private void assertOptimal(BiFunction<Graph, Integer, PartialSolution> engine) {
+        for (String graphFileName : _costDictionary.keySet()) {
+            String[] processorArray = _costDictionary.get(graphFileName);
+            Graph graph = Parser.parseDotFile(new File("input-graphs/" + graphFileName));
+            for (int processorNumber = 1; processorNumber <= processorArray.length; processorNumber++) {
+                int expectedCost = Integer.parseInt(processorArray[processorNumber - 1]);
+                if (expectedCost == 0) {
+                    continue;
+                }
+                PartialSolution ps = engine.apply(graph, processorNumber);
+                assertEquals("Cost of graph " + graph.getName() + " on " + processorNumber + " processors should be " + expectedCost,
+                        expectedCost, ps._cost);
+                assertEquals("Cost should equal finish time", ps._cost, ps.getLatestSlot().getFinish());
+                assertTrue("The produced schedule should be valid", scheduleIsValid(graph, ps));
+            }
+        }
+    }
 }